@@ -15,9 +15,11 @@ public class AlertRuleDto {
     private Long templateId;
     private String templateName;
     private String targetAudience;
+    private String conditionExpression;
     private NotificationChannel channel;
     private Boolean isActive;
     private Integer priority;
+    private Integer coalesceWindowSeconds;
     private String createdBy;
     private LocalDateTime createdAt;
     private String updatedBy;
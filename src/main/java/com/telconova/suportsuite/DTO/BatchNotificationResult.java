@@ -0,0 +1,32 @@
+package com.telconova.suportsuite.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de un elemento de la carga masiva: index es su posición en la petición.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchNotificationResult {
+
+    private int index;
+    private Long notificationId;
+    private ItemStatus status;
+    private String error;
+
+    public enum ItemStatus {
+        CREADA,
+        RECHAZADA
+    }
+
+    public static BatchNotificationResult created(int index) {
+        return new BatchNotificationResult(index, null, ItemStatus.CREADA, null);
+    }
+
+    public static BatchNotificationResult rejected(int index, String error) {
+        return new BatchNotificationResult(index, null, ItemStatus.RECHAZADA, error);
+    }
+}
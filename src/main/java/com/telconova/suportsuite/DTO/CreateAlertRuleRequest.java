@@ -4,6 +4,7 @@ import com.telconova.suportsuite.entity.EventTrigger;
 import com.telconova.suportsuite.entity.NotificationChannel;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
 
 
@@ -23,10 +24,17 @@ public class CreateAlertRuleRequest {
     @NotBlank(message = "El público objetivo es obligatorio")
     private String targetAudience;
 
+    // Condición opcional sobre los datos del evento, p. ej. "priority <= 2 and region in ('NORTE', 'CENTRO')"
+    private String conditionExpression;
+
     @NotBlank(message = "El canal de envío es obligatorio") // Cambiar de @NotNull a @NotBlank si era @NotNull
     private String channel;
 
     private Integer priority = 5;
 
+    // Ventana de agrupación en segundos; null o 0 envía cada notificación por separado
+    @PositiveOrZero(message = "La ventana de agrupación no puede ser negativa")
+    private Integer coalesceWindowSeconds;
+
     private Boolean isActive = true;
 }
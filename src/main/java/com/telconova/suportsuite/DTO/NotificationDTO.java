@@ -18,6 +18,7 @@ public class NotificationDTO {
     private String content;
 
     private NotificationChannel channel;
+    private Integer priority;
     private NotificationStatus status;
 
     private LocalDateTime createdAt;
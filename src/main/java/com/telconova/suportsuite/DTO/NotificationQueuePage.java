@@ -0,0 +1,32 @@
+package com.telconova.suportsuite.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Página de la cola de envíos (GET /api/v1/notifications/queue). Si hasMore es true, la página
+ * siguiente se pide con nextAfterPriority, nextAfterCreatedAt y nextAfterId como cursor.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationQueuePage {
+
+    private List<NotificationDTO> items;
+    private boolean hasMore;
+    private Integer nextAfterPriority;
+    private LocalDateTime nextAfterCreatedAt;
+    private Long nextAfterId;
+
+    public static NotificationQueuePage of(List<NotificationDTO> items, boolean hasMore) {
+        if (!hasMore || items.isEmpty()) {
+            return new NotificationQueuePage(items, false, null, null, null);
+        }
+        NotificationDTO last = items.get(items.size() - 1);
+        return new NotificationQueuePage(items, true, last.getPriority(), last.getCreatedAt(), last.getId());
+    }
+}
@@ -0,0 +1,10 @@
+package com.telconova.suportsuite.DTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección mínima de una notificación en cola: lo justo para ordenarla y agendarla,
+ * sin contenido ni regla asociada. Sirve además de cursor para la paginación por clave.
+ */
+public record QueuedNotification(Long id, Integer priority, LocalDateTime createdAt, LocalDateTime nextAttemptAt) {
+}
@@ -0,0 +1,10 @@
+package com.telconova.suportsuite.DTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de un usuario para el roster de público objetivo: sin hash de contraseña ni
+ * datos de login. Sirve además de cursor para la paginación por clave (id).
+ */
+public record RosterUser(Long id, String username, String roles, boolean locked, LocalDateTime lockoutEndTime) {
+}
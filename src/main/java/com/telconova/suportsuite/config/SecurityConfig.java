@@ -1,10 +1,13 @@
 package com.telconova.suportsuite.config;
 
 import com.telconova.suportsuite.security.JwtAuthenticationFilter;
+import com.telconova.suportsuite.security.SessionInactivityFilter;
 import com.telconova.suportsuite.security.SessionRenewalFilter;
 import com.telconova.suportsuite.security.JwtTokenProvider;
+import com.telconova.suportsuite.security.RenewedTokenCache;
 import com.telconova.suportsuite.security.TokenRevocationService;
-import com.telconova.suportsuite.repository.UserRepository;
+import com.telconova.suportsuite.security.UserSecurityCache;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -15,7 +18,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -48,17 +50,29 @@ public class SecurityConfig {
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter(
             JwtTokenProvider tokenProvider,
-            UserDetailsService userDetailsService,
-            UserRepository userRepository,
+            UserSecurityCache userSecurityCache,
             TokenRevocationService tokenRevocationService) {
-        return new JwtAuthenticationFilter(tokenProvider, userDetailsService, userRepository, tokenRevocationService);
+        return new JwtAuthenticationFilter(tokenProvider, userSecurityCache, tokenRevocationService);
     }
 
     @Bean
     public SessionRenewalFilter sessionRenewalFilter(
             JwtTokenProvider tokenProvider,
-            TokenRevocationService tokenRevocationService) {
-        return new SessionRenewalFilter(tokenProvider, tokenRevocationService);
+            TokenRevocationService tokenRevocationService,
+            UserSecurityCache userSecurityCache,
+            RenewedTokenCache renewedTokenCache) {
+        return new SessionRenewalFilter(tokenProvider, tokenRevocationService, userSecurityCache, renewedTokenCache);
+    }
+
+    // SessionInactivityFilter corre dentro de la cadena de seguridad; sin esto Spring Boot
+    // también lo registraría como filtro del servlet, detrás de toda la cadena
+    @Bean
+    public FilterRegistrationBean<SessionInactivityFilter> sessionInactivityFilterRegistration(
+            SessionInactivityFilter sessionInactivityFilter) {
+        FilterRegistrationBean<SessionInactivityFilter> registration =
+                new FilterRegistrationBean<>(sessionInactivityFilter);
+        registration.setEnabled(false);
+        return registration;
     }
 
 
@@ -69,6 +83,7 @@ public class SecurityConfig {
             HttpSecurity http,
             // Inyectamos los BEANS definidos arriba
             JwtAuthenticationFilter jwtAuthenticationFilter,
+            SessionInactivityFilter sessionInactivityFilter,
             SessionRenewalFilter sessionRenewalFilter) throws Exception {
 
         http
@@ -96,9 +111,12 @@ public class SecurityConfig {
                 //    ANTES del filtro de Autenticación de Spring.
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
 
-                // 2. Reinsertamos el SessionRenewalFilter después del filtro JWT.
-                //    Si el filtro JWT funciona, este debería funcionar.
-                .addFilterAfter(sessionRenewalFilter, JwtAuthenticationFilter.class);
+                // 2. Inactividad y revocación después del filtro JWT y ANTES de la renovación:
+                //    una sesión inactiva o revocada responde 401 sin recibir un X-New-Token.
+                .addFilterAfter(sessionInactivityFilter, JwtAuthenticationFilter.class)
+
+                // 3. Reinsertamos el SessionRenewalFilter después del filtro de inactividad.
+                .addFilterAfter(sessionRenewalFilter, SessionInactivityFilter.class);
 
 
         return http.build();
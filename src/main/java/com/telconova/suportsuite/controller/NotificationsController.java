@@ -1,17 +1,21 @@
 package com.telconova.suportsuite.controller;
 
 
+import com.telconova.suportsuite.DTO.BatchNotificationResult;
 import com.telconova.suportsuite.DTO.CreateNotificationRequest;
 import com.telconova.suportsuite.DTO.NotificationDTO;
+import com.telconova.suportsuite.DTO.NotificationQueuePage;
 import com.telconova.suportsuite.DTO.NotificationStatusDTO;
 import com.telconova.suportsuite.service.NotificationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @CrossOrigin(origins = "https://telco-nova-p7-f4-front.vercel.app")
@@ -31,6 +35,14 @@ public class NotificationsController {
     }
 
 
+    // POST /api/v1/notifications/batch
+    // Cada elemento se valida por separado; la respuesta trae el resultado de cada uno en orden
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchNotificationResult>> createNotifications(
+            @RequestBody List<CreateNotificationRequest> requests) {
+        List<BatchNotificationResult> results = notificationService.createNotifications(requests);
+        return ResponseEntity.ok(results);
+    }
 
     // GET /api/v1/notifications/stats
     @GetMapping("/stats")
@@ -46,10 +58,17 @@ public class NotificationsController {
         return ResponseEntity.ok(errorLogs);
     }
 
+    // Paginada por clave (size hasta 500): mientras hasMore sea true, la página siguiente se pide
+    // con los nextAfterPriority, nextAfterCreatedAt y nextAfterId de la respuesta
     @GetMapping("/queue")
-    public ResponseEntity<List<NotificationDTO>> getPendingQueue() {
-        List<NotificationDTO> pendingNotifications = notificationService.getPendingQueueNotifications();
-        return ResponseEntity.ok(pendingNotifications);
+    public ResponseEntity<NotificationQueuePage> getPendingQueue(
+            @RequestParam(required = false) Integer afterPriority,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreatedAt,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "100") int size) {
+        NotificationQueuePage page =
+                notificationService.getPendingQueueNotifications(afterPriority, afterCreatedAt, afterId, size);
+        return ResponseEntity.ok(page);
     }
 
 }
@@ -34,6 +34,11 @@ public class AlertRule {
     @Column (name = "target_audience", columnDefinition = "TEXT")
     private String targetAudience;
 
+    // Condición opcional sobre los datos del evento (p. ej. "customer_tier == 'PRIORITY'");
+    // null aplica la regla a todos los eventos de su disparador. Ver RuleCondition
+    @Column (name = "condition_expression", columnDefinition = "TEXT")
+    private String conditionExpression;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private NotificationChannel channel;
@@ -45,6 +50,11 @@ public class AlertRule {
     @Column (name = "priority")
     private Integer priority = 5;
 
+    // Agrupación opcional: las notificaciones de la regla para un mismo destinatario y canal
+    // se acumulan durante esta ventana y se envían como un solo resumen (null o 0 = sin agrupar)
+    @Column (name = "coalesce_window_seconds")
+    private Integer coalesceWindowSeconds;
+
     //Trazabilidad
 
     @Column (name = "created_by")
@@ -5,6 +5,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Column;
+import jakarta.persistence.Version;
 import lombok.Data;
 
 @Entity
@@ -18,4 +19,8 @@ public class MessageTemplate {
 
     @Column(columnDefinition = "TEXT")
     private String content;
+
+    // Cada edición la incrementa; las plantillas compiladas se cachean por id y versión
+    @Version
+    private Long version;
 }
\ No newline at end of file
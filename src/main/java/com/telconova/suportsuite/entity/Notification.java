@@ -6,6 +6,7 @@ import com.telconova.suportsuite.entity.NotificationChannel;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
 @EqualsAndHashCode(callSuper = false)
@@ -13,8 +14,11 @@ import lombok.EqualsAndHashCode;
 @Table(name ="notifications")
 public class Notification {
 
+    // Secuencia con asignación por bloques (pooled): IDENTITY impedía a Hibernate agrupar los INSERT
+    // La secuencia debe incrementar de a 50, igual que allocationSize (db/V3__notifications_id_sequence_pooled.sql)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notifications_seq")
+    @SequenceGenerator(name = "notifications_seq", sequenceName = "notifications_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -50,8 +54,20 @@ public class Notification {
     @Column (name = "error_menssage" )
     private String errorMenssage;
 
-    @ManyToOne
+    // Vencimiento del reclamo de un worker mientras la notificación está PROCESANDO.
+    // Si el worker muere, el lease expira y la notificación vuelve a la cola.
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // Próximo intento permitido para una notificación en REINTENTANDO (backoff exponencial)
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    // LAZY: los workers y las consultas de la cola no necesitan la regla
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "alert_rule_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private AlertRule alertRule;
 
     @PrePersist
@@ -0,0 +1,16 @@
+package com.telconova.suportsuite.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción para peticiones con datos que el cliente puede corregir (límites de tamaño,
+ * expresiones mal escritas...). Su mensaje se devuelve tal cual en la respuesta 400.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -27,7 +27,14 @@ public class GlobalExceptionHandler {
         return createErrorResponse(HttpStatus.UNAUTHORIZED, "Unauthorized", "Usuario o contraseña incorrectos.");
     }
 
-    // 3. Método auxiliar para crear una respuesta de error JSON limpia
+    // 3. Peticiones con datos fuera de los límites admitidos (p. ej. carga masiva demasiado grande)
+    // Solo BadRequestException: otras excepciones pueden llevar detalles internos en el mensaje
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequestException(BadRequestException ex) {
+        return createErrorResponse(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage());
+    }
+
+    // 4. Método auxiliar para crear una respuesta de error JSON limpia
     private ResponseEntity<Map<String, Object>> createErrorResponse(HttpStatus status, String error, String message) {
         Map<String, Object> response = new HashMap<>();
         response.put("timestamp", LocalDateTime.now());
@@ -3,6 +3,7 @@ package com.telconova.suportsuite.repository;
 import com.telconova.suportsuite.entity.AlertRule;
 import com.telconova.suportsuite.entity.EventTrigger;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,6 +17,10 @@ public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
     // Buscar reglas por evento disparador y activas
     List<AlertRule> findByTriggerEventAndIsActiveTrue(EventTrigger triggerEvent);
 
+    // Reglas activas con su plantilla en una sola consulta, para el índice en memoria
+    @Query("SELECT r FROM AlertRule r LEFT JOIN FETCH r.messageTemplate WHERE r.isActive = true ORDER BY r.id")
+    List<AlertRule> findActiveWithTemplate();
+
     // Obtener todas las reglas ordenadas
     List<AlertRule> findAllByOrderByCreatedAtDesc();
 }
@@ -1,12 +1,17 @@
 package com.telconova.suportsuite.repository;
 
+import com.telconova.suportsuite.DTO.QueuedNotification;
 import com.telconova.suportsuite.entity.Notification;
 import com.telconova.suportsuite.entity.Notification.NotificationStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -15,13 +20,125 @@ public interface NotificationRepository extends JpaRepository<Notification,Long>
     // 1. HU-005.4: Métodos de monitoreo y conteo.
     Long countByStatus(NotificationStatus status);
 
-    // 2. HU-005.2: Cola Activa (PENDIENTE y REINTENTANDO)
-    List<Notification> findByStatusInOrderByPriorityAscCreatedAtAsc(List<NotificationStatus> statuses);
+    // Conteo de todos los estados en una sola consulta, para reconciliar NotificationStatsTracker
+    @Query("SELECT n.status, COUNT(n) FROM Notification n GROUP BY n.status")
+    List<Object[]> countGroupByStatus();
 
     // 3. HU-005.4: Obtener notificaciones para la visualización de errores (FALLIDA y REINTENTANDO)
     List<Notification> findByStatusInOrderByCreatedAtDesc(List<NotificationStatus> statuses);
 
-    @Query("SELECT n FROM Notification n WHERE n.status = 'FALLIDA' AND n.reintentosCount < n.maxReintentos")
-    List<Notification> findNotificationsEligibleForRetry();
+    // Lectura de la cola por páginas con paginación por clave sobre (priority, created_at, id):
+    // cada página parte de la última fila leída, así el costo no crece con el offset y la
+    // memoria queda acotada al tamaño de página. Solo se lee la proyección mínima.
+    @Query("SELECT new com.telconova.suportsuite.DTO.QueuedNotification(n.id, n.priority, n.createdAt, n.nextAttemptAt) " +
+            "FROM Notification n WHERE n.status = :status " +
+            "ORDER BY n.priority ASC, n.createdAt ASC, n.id ASC")
+    List<QueuedNotification> findQueuedFirstPage(@Param("status") NotificationStatus status, Pageable page);
+
+    @Query("SELECT new com.telconova.suportsuite.DTO.QueuedNotification(n.id, n.priority, n.createdAt, n.nextAttemptAt) " +
+            "FROM Notification n WHERE n.status = :status AND (n.priority > :priority " +
+            "OR (n.priority = :priority AND (n.createdAt > :createdAt " +
+            "OR (n.createdAt = :createdAt AND n.id > :id)))) " +
+            "ORDER BY n.priority ASC, n.createdAt ASC, n.id ASC")
+    List<QueuedNotification> findQueuedPageAfter(@Param("status") NotificationStatus status,
+                                                 @Param("priority") Integer priority,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Long id,
+                                                 Pageable page);
+
+    // Vista de la cola para el panel (HU-005.2), también por clave y acotada
+    @Query("SELECT n FROM Notification n WHERE n.status IN :statuses " +
+            "ORDER BY n.priority ASC, n.createdAt ASC, n.id ASC")
+    List<Notification> findQueueFirstPage(@Param("statuses") List<NotificationStatus> statuses, Pageable page);
+
+    @Query("SELECT n FROM Notification n WHERE n.status IN :statuses AND (n.priority > :priority " +
+            "OR (n.priority = :priority AND (n.createdAt > :createdAt " +
+            "OR (n.createdAt = :createdAt AND n.id > :id)))) " +
+            "ORDER BY n.priority ASC, n.createdAt ASC, n.id ASC")
+    List<Notification> findQueuePageAfter(@Param("statuses") List<NotificationStatus> statuses,
+                                          @Param("priority") Integer priority,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id,
+                                          Pageable page);
+
+    // 4. Reclamo de lotes por los workers: SKIP LOCKED salta las filas que otro worker/nodo
+    // ya tiene bloqueadas, así nadie espera ni se envía dos veces (PostgreSQL y H2 2.x).
+    // Los reintentos cuyo backoff no ha vencido (next_attempt_at futuro) no se reclaman.
+    // Solo las prioridades del carril que reclama, para que un carril no tome trabajo de otro.
+    @Query(value = "SELECT id FROM notifications WHERE status IN ('PENDIENTE', 'REINTENTANDO') " +
+            "AND priority BETWEEN :minPriority AND :maxPriority " +
+            "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) " +
+            "ORDER BY priority ASC, created_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimableIds(@Param("minPriority") int minPriority,
+                                @Param("maxPriority") int maxPriority,
+                                @Param("limit") int limit,
+                                @Param("now") LocalDateTime now);
+
+    // Igual que lockClaimableIds pero limitado a las filas anunciadas por la cola en memoria
+    @Query(value = "SELECT id FROM notifications WHERE id IN (:ids) " +
+            "AND status IN ('PENDIENTE', 'REINTENTANDO') " +
+            "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimableIdsIn(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.status = :status, n.leaseExpiresAt = :leaseExpiresAt WHERE n.id IN :ids")
+    int markClaimed(@Param("ids") List<Long> ids,
+                    @Param("status") NotificationStatus status,
+                    @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.status = :queuedStatus, n.leaseExpiresAt = null " +
+            "WHERE n.id = :id AND n.status = :processingStatus")
+    int releaseClaim(@Param("id") Long id,
+                     @Param("queuedStatus") NotificationStatus queuedStatus,
+                     @Param("processingStatus") NotificationStatus processingStatus);
+
+    // Aplazada por límite de tasa: vuelve a su estado de cola con un próximo intento, sin contar fallo
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.status = CASE WHEN n.reintentosCount > 0 " +
+            "THEN :retryingStatus ELSE :pendingStatus END, n.leaseExpiresAt = null, " +
+            "n.nextAttemptAt = :nextAttemptAt WHERE n.id = :id AND n.status = :processingStatus")
+    int deferClaim(@Param("id") Long id,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("retryingStatus") NotificationStatus retryingStatus,
+                   @Param("pendingStatus") NotificationStatus pendingStatus,
+                   @Param("processingStatus") NotificationStatus processingStatus);
+
+    // Cierre de un envío por fila: solo si la fila sigue reclamada con el mismo lease. Si el
+    // lease venció y otro worker la volvió a reclamar, no se toca (0 filas) y el estado es suyo.
+    // Con transacción propia: processNotification no abre una mientras envía.
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.status = :status, n.sentAt = :sentAt, " +
+            "n.reintentosCount = :reintentosCount, n.errorMenssage = :errorMessage, " +
+            "n.nextAttemptAt = :nextAttemptAt, n.leaseExpiresAt = null " +
+            "WHERE n.id = :id AND n.status = :processingStatus AND n.leaseExpiresAt = :claimedLease")
+    int completeClaim(@Param("id") Long id,
+                      @Param("status") NotificationStatus status,
+                      @Param("sentAt") LocalDateTime sentAt,
+                      @Param("reintentosCount") Integer reintentosCount,
+                      @Param("errorMessage") String errorMessage,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("processingStatus") NotificationStatus processingStatus,
+                      @Param("claimedLease") LocalDateTime claimedLease);
+
+    // 5. Devuelven a la cola las notificaciones cuyo worker no terminó antes de vencer el lease,
+    // al mismo estado que releaseClaim: REINTENTANDO si ya tenían intentos, PENDIENTE si no.
+    // Son dos UPDATE para saber cuántas filas pasan a cada estado.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.status = :retryingStatus, n.leaseExpiresAt = null " +
+            "WHERE n.status = :processingStatus AND (n.leaseExpiresAt IS NULL OR n.leaseExpiresAt < :now) " +
+            "AND n.reintentosCount > 0")
+    int releaseExpiredRetries(@Param("retryingStatus") NotificationStatus retryingStatus,
+                              @Param("processingStatus") NotificationStatus processingStatus,
+                              @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.status = :pendingStatus, n.leaseExpiresAt = null " +
+            "WHERE n.status = :processingStatus AND (n.leaseExpiresAt IS NULL OR n.leaseExpiresAt < :now) " +
+            "AND (n.reintentosCount IS NULL OR n.reintentosCount <= 0)")
+    int releaseExpiredFirstAttempts(@Param("pendingStatus") NotificationStatus pendingStatus,
+                                    @Param("processingStatus") NotificationStatus processingStatus,
+                                    @Param("now") LocalDateTime now);
 
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package com.telconova.suportsuite.repository;
 
+import com.telconova.suportsuite.DTO.RosterUser;
 import com.telconova.suportsuite.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query; // Importar la anotación Query
+import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -15,4 +19,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // de conexiones puede entregar una conexión válida.
     @Query(value = "SELECT 1", nativeQuery = true)
     Integer checkDatabaseConnection();
-}
\ No newline at end of file
+
+    // Página del roster de público objetivo, por clave (id) para no depender del tamaño de la tabla
+    @Query("SELECT new com.telconova.suportsuite.DTO.RosterUser(u.id, u.username, u.roles, u.isLocked, u.lockoutEndTime) " +
+           "FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<RosterUser> findRosterPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -1,18 +1,15 @@
 package com.telconova.suportsuite.security;
 
-import com.telconova.suportsuite.entity.User;
 import com.telconova.suportsuite.exception.LockedAccountException;
-import com.telconova.suportsuite.repository.UserRepository;
+import com.telconova.suportsuite.security.UserSecurityCache.UserSecurityState;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -21,9 +18,8 @@ import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
 import java.util.Collection;
-import java.util.Arrays;
-import java.util.stream.Collectors;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 
@@ -34,14 +30,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final TokenRevocationService tokenRevocationService;
     private final JwtTokenProvider tokenProvider;
-    private final UserDetailsService userDetailsService; // Lo mantendremos
-    private final UserRepository userRepository;
+    private final UserSecurityCache userSecurityCache;
 
     // Constructor para Inyección de Dependencias
-    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsService userDetailsService, UserRepository userRepository, TokenRevocationService tokenRevocationService) {
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserSecurityCache userSecurityCache, TokenRevocationService tokenRevocationService) {
         this.tokenProvider = tokenProvider;
-        this.userDetailsService = userDetailsService;
-        this.userRepository = userRepository;
+        this.userSecurityCache = userSecurityCache;
         this.tokenRevocationService = tokenRevocationService;
     }
 
@@ -54,43 +48,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = tokenProvider.getJwtFromRequest(request);
 
             if (jwt != null) {
-                if (tokenProvider.validateToken(jwt)) {
+                // Única verificación de firma por petición (o ninguna si el token ya está en caché)
+                Claims claims = tokenProvider.getValidClaims(jwt);
+                if (claims != null) {
+                    // Los filtros siguientes (p. ej. SessionRenewalFilter) leen estos Claims
+                    request.setAttribute(JwtTokenProvider.CLAIMS_ATTRIBUTE, claims);
 
                     // ... (Lógica de token revocado y username/userEntity/isLocked permanece IGUAL) ...
 
-                    String username = tokenProvider.getUsernameFromJWT(jwt);
+                    String username = claims.getSubject();
 
-                    // 1. OBTENER EL ESTADO ACTUAL DEL USUARIO para verificación de bloqueo (MANTENER)
-                    User userEntity = userRepository.findByUsername(username)
-                            .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+                    // 1. ESTADO ACTUAL DEL USUARIO (bloqueo y UserDetails) desde la caché; una sola
+                    //    consulta a tn_user cuando no está o venció, y se descarta al bloquear/desbloquear
+                    UserSecurityState userState = userSecurityCache.get(username);
 
-                    if (userEntity.isLocked()) {
+                    if (userState.locked()) {
                         throw new LockedAccountException("Acceso denegado. Su cuenta está bloqueada.");
                     }
 
-                    // 2. Cargar UserDetails para cumplir con la inyección (MANTENER)
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    // 2. UserDetails ya construido junto con el estado (MANTENER)
+                    UserDetails userDetails = userState.userDetails();
 
 
-                    // 🟢 MODIFICACIÓN CRÍTICA: EXTRACCIÓN ROBUSTA DE ROLES
-
-                    // Obtener el objeto de la claim "roles". Puede ser String o List<String>.
-                    Object rolesObject = tokenProvider.getClaims(jwt).get("roles");
-                    Collection<SimpleGrantedAuthority> authorities = new java.util.ArrayList<>();
-
-                    if (rolesObject instanceof String) {
-                        // Caso 1: El rol viene como una cadena (ej: "ADMIN")
-                        String rolesString = (String) rolesObject;
-                        // Aseguramos que si hay comas (ej: "ADMIN,SUPERVISOR") también funcione.
-                        authorities = Arrays.stream(rolesString.split(","))
-                                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.trim()))
-                                .collect(Collectors.toList());
-                    } else if (rolesObject instanceof java.util.List) {
-                        // Caso 2: El rol viene como una lista (ej: ["ADMIN", "SUPERVISOR"])
-                        authorities = (Collection<SimpleGrantedAuthority>) ((java.util.List<?>) rolesObject).stream()
-                                .map(role -> new SimpleGrantedAuthority("ROLE_" + ((String) role).trim()))
-                                .collect(Collectors.toList());
-                    }
+                    // 🟢 EXTRACCIÓN ROBUSTA DE ROLES
+                    // La claim "roles" puede ser String ("ADMIN,SUPERVISOR") o List<String>; cada
+                    // combinación se resuelve una vez y se reutiliza la misma lista de authorities
+                    Collection<GrantedAuthority> authorities = userSecurityCache.authoritiesFor(claims.get("roles"));
 
 
                     // 3. Crear el Token de Autenticación con las authorities CORREGIDAS
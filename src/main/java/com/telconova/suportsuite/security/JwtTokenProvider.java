@@ -1,21 +1,34 @@
 package com.telconova.suportsuite.security;
 
 import com.telconova.suportsuite.entity.User;
+import com.telconova.suportsuite.security.UserSecurityCache.UserSecurityState;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.SignatureException;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.io.Decoders;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
+@Slf4j
 @Component
 public class JwtTokenProvider {
 
+    // Atributo de la petición con los Claims ya verificados por JwtAuthenticationFilter,
+    // para que los filtros siguientes no vuelvan a interpretar el token
+    public static final String CLAIMS_ATTRIBUTE = JwtTokenProvider.class.getName() + ".CLAIMS";
+
     // Clave secreta para firmar el token.
     @Value("${jwt.secret:clave_secreta_por_defecto_y_muy_larga_para_telconova_supportsuite}")
     private String jwtSecret;
@@ -24,31 +37,94 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration.minutes:15}")
     private long jwtExpirationInMinutes;
 
+    private final VerifiedTokenCache verifiedTokens;
+
+    // Se construyen una sola vez: la clave decodificada y un parser inmutable (seguro entre hilos)
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    public JwtTokenProvider(VerifiedTokenCache verifiedTokens) {
+        this.verifiedTokens = verifiedTokens;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Los mismos bytes que usaba setSigningKey(String): el secreto se interpreta en Base64,
+        // así los tokens ya emitidos siguen siendo válidos
+        signingKey = new SecretKeySpec(Decoders.BASE64.decode(jwtSecret), SignatureAlgorithm.HS512.getJcaName());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     public String generateToken(User user) {
+        return buildToken(user.getUsername(), user.getRoles(), user.getId());
+    }
+
+    /**
+     * Token nuevo con vida completa para el usuario (renovación de sesión). Roles e id salen del
+     * estado actual del usuario, no del token que se renueva: un cambio de roles se aplica en la
+     * renovación en lugar de arrastrarse de token en token.
+     */
+    public String renewToken(String username, UserSecurityState state) {
+        return buildToken(username, state.roles(), state.userId());
+    }
+
+    private String buildToken(String username, Object roles, Object userId) {
         Date now = new Date();
         long expirationTimeMillis = jwtExpirationInMinutes * 60 * 1000;
         Date expiryDate = new Date(now.getTime() + expirationTimeMillis);
 
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", user.getRoles());
-        claims.put("userId", user.getId());
+        claims.put("roles", roles);
+        claims.put("userId", userId);
 
         return Jwts.builder()
-                .setSubject(user.getUsername())
+                .setSubject(username)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
                 .addClaims(claims)
-                // Usando el metodo obsoleto pero compatible con versiones antiguas
-                .signWith(SignatureAlgorithm.HS512, jwtSecret)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    // Centraliza la obtención de las Claims.
+    /**
+     * Centraliza la obtención de las Claims: verifica firma y expiración una sola vez por
+     * token; las siguientes peticiones con el mismo token las toman de la caché sin HMAC.
+     * Lanza las excepciones de jjwt si el token no es válido.
+     */
     public Claims getClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody();
+        long now = System.currentTimeMillis();
+        Claims cached = verifiedTokens.get(token, now);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        verifiedTokens.put(token, claims, now);
+        return claims;
+    }
+
+    /**
+     * Claims del token si es válido, o null si no lo es (firma, expiración o formato).
+     * Es la verificación única que hace JwtAuthenticationFilter en cada petición.
+     */
+    public Claims getValidClaims(String token) {
+        try {
+            return getClaims(token);
+        } catch (SignatureException ex) {
+            log.debug("Firma JWT inválida: {}", ex.getMessage());
+        } catch (ExpiredJwtException ex) {
+            log.debug("Token JWT expirado: {}", ex.getMessage());
+        } catch (Exception ex) {
+            log.debug("Token JWT no válido: {}", ex.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Claims que JwtAuthenticationFilter dejó en la petición, o null si no se autenticó con JWT.
+     */
+    public Claims getClaimsFromRequest(HttpServletRequest request) {
+        Object claims = request.getAttribute(CLAIMS_ATTRIBUTE);
+        return claims instanceof Claims verified ? verified : null;
     }
 
     public String getUsernameFromJWT(String token) {
@@ -58,12 +134,7 @@ public class JwtTokenProvider {
 
     public long getRemainingTimeInMs(String token) {
         try {
-            Claims claims = getClaims(token);
-
-            Date expiration = claims.getExpiration();
-            long remaining = expiration.getTime() - new Date().getTime();
-            return Math.max(0, remaining);
-
+            return getRemainingTimeInMs(getClaims(token));
         } catch (ExpiredJwtException ex) {
             return 0;
         } catch (Exception ex) {
@@ -71,28 +142,21 @@ public class JwtTokenProvider {
         }
     }
 
+    public long getRemainingTimeInMs(Claims claims) {
+        Date expiration = claims.getExpiration();
+        long remaining = expiration.getTime() - System.currentTimeMillis();
+        return Math.max(0, remaining);
+    }
+
     public boolean validateToken(String authToken) {
-        try {
-            Jwts.parser()
-                    // Usamos setSigningKey(String key)
-                    .setSigningKey(jwtSecret)
-                    .parseClaimsJws(authToken);
-            return true;
-        } catch (SignatureException ex) {
-            // Log: Firma JWT inválida
-        } catch (ExpiredJwtException ex) {
-            // Log: Token JWT expirado
-        } catch (Exception ex) {
-            // Log: Otro error de JWT
-        }
-        return false;
+        return getValidClaims(authToken) != null;
     }
 
-    public String getJwtFromRequest(jakarta.servlet.http.HttpServletRequest request) {
+    public String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
             return bearerToken.substring(7);
         }
         return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package com.telconova.suportsuite.security;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Límite de líneas de log por ventana de tiempo para los caminos calientes: deja pasar
+ * hasta permits líneas cada intervalo y cuenta las que omite, para informarlas en la
+ * siguiente que sí se escriba. Sin candados ni objetos por llamada.
+ */
+final class RateLimitedLog {
+
+    private final long intervalMs;
+    private final int permits;
+    private final AtomicLong windowStart = new AtomicLong();
+    private final AtomicInteger used = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    RateLimitedLog(long intervalMs, int permits) {
+        this.intervalMs = intervalMs;
+        this.permits = permits;
+    }
+
+    /**
+     * true si se puede escribir la línea ahora; si no, la cuenta como omitida.
+     */
+    boolean tryAcquire(long nowMs) {
+        long start = windowStart.get();
+        if (nowMs - start >= intervalMs && windowStart.compareAndSet(start, nowMs)) {
+            used.set(0);
+        }
+        if (used.incrementAndGet() <= permits) {
+            return true;
+        }
+        suppressed.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Líneas omitidas desde la última llamada.
+     */
+    long drainSuppressed() {
+        return suppressed.getAndSet(0);
+    }
+}
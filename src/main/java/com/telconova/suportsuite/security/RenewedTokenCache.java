@@ -0,0 +1,70 @@
+package com.telconova.suportsuite.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Token renovado de cada token de origen, para firmarlo una sola vez aunque el cliente siga
+ * enviando el token viejo en todas las peticiones de los últimos minutos. La clave es el token
+ * de origen completo; la entrada vale hasta que ese token expira (después ya no autentica y no
+ * hay nada que renovar). Las peticiones concurrentes con el mismo token esperan la misma firma.
+ * Está acotado a max-entries: lleno, primero descarta las vencidas y, si no alcanza, firma sin
+ * guardar.
+ */
+@Slf4j
+@Component
+public class RenewedTokenCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${jwt.renewal-cache.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * Token renovado para sourceToken: el guardado si sigue vigente o, si no, el que firma renew.
+     */
+    public String getOrRenew(String sourceToken, long sourceExpiresAtMs, long nowMs, Supplier<String> renew) {
+        Entry entry = entries.get(sourceToken);
+        if (entry != null && entry.sourceExpiresAtMs() > nowMs) {
+            return entry.renewedToken();
+        }
+        if (maxEntries <= 0 || sourceExpiresAtMs <= nowMs) {
+            return renew.get();
+        }
+        if (entries.size() >= maxEntries) {
+            evictExpired(nowMs);
+            if (entries.size() >= maxEntries) {
+                return renew.get();
+            }
+        }
+        return entries.compute(sourceToken, (token, existing) ->
+                existing != null && existing.sourceExpiresAtMs() > nowMs
+                        ? existing
+                        : new Entry(renew.get(), sourceExpiresAtMs)).renewedToken();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.cache.evict-interval-ms:60000}")
+    public void evictExpired() {
+        int before = entries.size();
+        evictExpired(System.currentTimeMillis());
+        if (before != entries.size()) {
+            log.debug("Caché de tokens renovados: {} vencidos descartados.", before - entries.size());
+        }
+    }
+
+    private void evictExpired(long nowMs) {
+        entries.values().removeIf(entry -> entry.sourceExpiresAtMs() <= nowMs);
+    }
+
+    private record Entry(String renewedToken, long sourceExpiresAtMs) {
+    }
+}
@@ -0,0 +1,126 @@
+package com.telconova.suportsuite.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Último acceso de cada sesión (token) para la regla de inactividad de SessionInactivityFilter.
+ * Guarda el resumen de 128 bits del token (TokenDigest) y el último acceso en milisegundos, en
+ * una TokenDigestTable acotada a max-entries: ni el token ni fechas por entrada o por petición.
+ * Un barrido periódico quita las sesiones inactivas y las revoca por resumen (hasta la
+ * expiración más tardía posible del token), para que un token abandonado no vuelva a valer como
+ * sesión nueva al salir de la tabla. Llena, descarta por muestreo los accesos más antiguos.
+ */
+@Slf4j
+@Component
+public class SessionActivityTracker {
+
+    private final TokenRevocationService tokenRevocationService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${session.inactivity.minutes:15}")
+    private long inactivityMinutes;
+
+    @Value("${jwt.expiration.minutes:15}")
+    private long tokenLifetimeMinutes;
+
+    @Value("${session.activity.max-entries:200000}")
+    private int maxEntries;
+
+    // Se informan en el siguiente barrido: como mucho una línea por barrido
+    private final AtomicLong evictedSinceSweep = new AtomicLong();
+
+    private long inactivityMs;
+    private long tokenLifetimeMs;
+    private TokenDigestTable lastAccess;
+    private Counter evictions;
+
+    public SessionActivityTracker(TokenRevocationService tokenRevocationService, MeterRegistry meterRegistry) {
+        this.tokenRevocationService = tokenRevocationService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        inactivityMs = TimeUnit.MINUTES.toMillis(inactivityMinutes);
+        tokenLifetimeMs = TimeUnit.MINUTES.toMillis(tokenLifetimeMinutes);
+        // Al llenarse descarta de una vez ~1/16 de las entradas, las de acceso más antiguo
+        lastAccess = new TokenDigestTable(maxEntries, Math.max(1, maxEntries / 16), this::onEvicted);
+        evictions = Counter.builder("session.activity.evicted")
+                .description("Sesiones descartadas del seguimiento por alcanzar max-entries")
+                .register(meterRegistry);
+        Gauge.builder("session.activity.tracked", lastAccess, TokenDigestTable::size)
+                .description("Sesiones con último acceso en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra un acceso con el token. Devuelve false si la sesión ya había superado la
+     * inactividad permitida (y deja de seguirla); true si sigue activa o es nueva.
+     */
+    public boolean recordAccess(String token) {
+        return recordAccess(token, System.currentTimeMillis());
+    }
+
+    public boolean recordAccess(String token, long now) {
+        long high = TokenDigest.high(token);
+        long low = TokenDigest.low(token);
+        long last = lastAccess.get(high, low);
+        if (last != TokenDigestTable.ABSENT && now - last >= inactivityMs) {
+            lastAccess.remove(high, low);
+            return false;
+        }
+        if (last == TokenDigestTable.ABSENT || now > last) {
+            lastAccess.putIfGreater(high, low, now);
+        }
+        return true;
+    }
+
+    public int size() {
+        return lastAccess.size();
+    }
+
+    /**
+     * Quita las sesiones que superaron la inactividad y las revoca, como habría hecho el filtro
+     * si el token se hubiera vuelto a usar.
+     */
+    @Scheduled(fixedDelayString = "${session.activity.sweep-ms:60000}")
+    public void sweepInactive() {
+        sweepInactive(System.currentTimeMillis());
+    }
+
+    public void sweepInactive(long now) {
+        int swept = lastAccess.removeUpTo(now - inactivityMs, this::revokeInactive);
+        if (swept > 0) {
+            log.debug("event=inactive_sessions_swept count={} remaining={}", swept, lastAccess.size());
+        }
+        long evicted = evictedSinceSweep.getAndSet(0);
+        if (evicted > 0) {
+            log.warn("event=session_activity_full max_entries={} evicted={}", maxEntries, evicted);
+        }
+    }
+
+    // Con el candado de la tabla tomado: solo revoca, no vuelve a usar lastAccess
+    private void onEvicted(long high, long low, long lastAccessMs) {
+        evictions.increment();
+        evictedSinceSweep.incrementAndGet();
+        // Solo la expulsada ya inactiva se revoca; una activa vuelve a empezar como sesión nueva
+        if (System.currentTimeMillis() - lastAccessMs >= inactivityMs) {
+            revokeInactive(high, low, lastAccessMs);
+        }
+    }
+
+    // El token se emitió antes de su último acceso, así que expira como tarde una vida después
+    private void revokeInactive(long high, long low, long lastAccessMs) {
+        tokenRevocationService.revokeDigest(high, low, lastAccessMs + tokenLifetimeMs);
+    }
+}
@@ -5,19 +5,17 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Filtro de Inactividad de Sesión que utiliza un servicio de revocación en memoria
  * para bloquear tokens inactivos y el problema del "segundo intento".
+ * Va dentro de la cadena de seguridad, antes de SessionRenewalFilter (ver SecurityConfig): así
+ * un token inactivo o revocado recibe el 401 sin que antes se le haya emitido un X-New-Token.
  */
 @Component
 public class SessionInactivityFilter extends OncePerRequestFilter {
@@ -26,11 +24,9 @@ public class SessionInactivityFilter extends OncePerRequestFilter {
     @Autowired
     private TokenRevocationService tokenRevocationService;
 
-    // Mapa para rastrear el último acceso (solo para medir la inactividad)
-    private final ConcurrentHashMap<String, LocalDateTime> lastAccessMap = new ConcurrentHashMap<>();
-
-    @Value("${session.inactivity.minutes:15}")
-    private long inactivityMinutes;
+    // Último acceso por resumen del token (solo para medir la inactividad)
+    @Autowired
+    private SessionActivityTracker sessionActivityTracker;
 
     // Ruta de autenticación para excluir
     private static final String AUTH_PATH = "/api/v1/auth/login";
@@ -56,35 +52,17 @@ public class SessionInactivityFilter extends OncePerRequestFilter {
                 return;
             }
 
-            // 3. VERIFICACIÓN DE INACTIVIDAD POR TIEMPO
-            LocalDateTime lastAccess = lastAccessMap.get(token);
-            LocalDateTime now = LocalDateTime.now();
-            boolean isInactive = false;
-
-            if (lastAccess != null) {
-                Duration duration = Duration.between(lastAccess, now);
-
-                if (duration.toMinutes() >= inactivityMinutes) {
-                    isInactive = true;
-                }
-            }
-
-            if (isInactive) {
+            // 3. VERIFICACIÓN DE INACTIVIDAD POR TIEMPO (y registro del acceso si sigue activa;
+            // si `recordAccess` no lo conocía, el token se registra por primera vez aquí)
+            if (!sessionActivityTracker.recordAccess(token)) {
                 // Sesión expirada por inactividad
 
-                // Lo removemos del mapa de acceso (para no seguir rastreándolo)
-                lastAccessMap.remove(token);
-
                 // CLAVE: Lo agregamos a la lista negra para bloquear cualquier reintento (segundo intento)
                 tokenRevocationService.revokeToken(token);
 
                 sendExpiredResponse(response);
                 return; // Detener la cadena
             }
-
-            // 4. Mantener Sesión Activa (Actualizar marca de tiempo).
-            // Si `lastAccess == null`, el token se registra por primera vez aquí.
-            lastAccessMap.put(token, now);
         }
 
         filterChain.doFilter(request, response);
@@ -1,6 +1,7 @@
 package com.telconova.suportsuite.security;
 
-import com.telconova.suportsuite.entity.User;
+import com.telconova.suportsuite.security.UserSecurityCache.UserSecurityState;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,20 +15,30 @@ import java.io.IOException;
 /**
  * Filtro que maneja la inactividad de la sesión (HU-003.3).
  * Renueva el token si el usuario está activo (hace peticiones) y el token está cerca de expirar.
+ * El token renovado se firma una vez por token de origen (RenewedTokenCache) y se devuelve
+ * el mismo en las peticiones siguientes hasta que el cliente lo adopte.
+ * Va en la cadena de seguridad después de SessionInactivityFilter: una sesión inactiva o un
+ * token revocado responden 401 antes de llegar aquí. Aun así no renueva un token revocado ni
+ * el de un usuario bloqueado, y firma con los roles e id actuales del usuario (UserSecurityCache).
  */
 @Component
 public class SessionRenewalFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
-    private final TokenRevocationService tokenRevocationService; // Requerido para el Bean en SecurityConfig
+    private final TokenRevocationService tokenRevocationService;
+    private final UserSecurityCache userSecurityCache;
+    private final RenewedTokenCache renewedTokens;
 
     // Umbral de Renovación: 5 minutos (300,000 ms).
     private static final long RENEWAL_THRESHOLD_MS = 300000L;
 
 
-    public SessionRenewalFilter(JwtTokenProvider tokenProvider, TokenRevocationService tokenRevocationService) {
+    public SessionRenewalFilter(JwtTokenProvider tokenProvider, TokenRevocationService tokenRevocationService,
+                                UserSecurityCache userSecurityCache, RenewedTokenCache renewedTokens) {
         this.tokenProvider = tokenProvider;
         this.tokenRevocationService = tokenRevocationService;
+        this.userSecurityCache = userSecurityCache;
+        this.renewedTokens = renewedTokens;
     }
 
     @Override
@@ -39,31 +50,34 @@ public class SessionRenewalFilter extends OncePerRequestFilter {
         // Solo procesar si el usuario ya fue autenticado por JwtAuthenticationFilter
         if (SecurityContextHolder.getContext().getAuthentication() != null) {
 
-            // La línea que fallaba antes ahora usa la variable 'tokenProvider' que NO es null.
-            String jwt = tokenProvider.getJwtFromRequest(request);
+            // Claims ya verificados por JwtAuthenticationFilter: no se vuelve a interpretar el token
+            Claims claims = tokenProvider.getClaimsFromRequest(request);
 
-            if (jwt != null) {
+            if (claims != null) {
 
-                long remainingTimeMs = tokenProvider.getRemainingTimeInMs(jwt);
+                long remainingTimeMs = tokenProvider.getRemainingTimeInMs(claims);
 
                 // Verificar si el token es válido y está dentro del umbral de renovación
-                if (remainingTimeMs > 0 && remainingTimeMs < RENEWAL_THRESHOLD_MS) {
-
-                    Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-
-                    // ⚠NOTA: El principal en Spring Security suele ser un UserDetails, no tu entidad User.
-                    // Si estás seguro de que tu UserDetailsService devuelve la entidad User directamente, está bien.
-                    // Si devuelve un UserDetails de Spring, tendrías que obtener el username y cargarlo de nuevo.
-                    if (principal instanceof User) {
-
-                        User user = (User) principal;
-
-                        // Generar el nuevo token
-                        String newJwt = tokenProvider.generateToken(user);
+                String sourceToken = tokenProvider.getJwtFromRequest(request);
+                if (remainingTimeMs > 0 && remainingTimeMs < RENEWAL_THRESHOLD_MS
+                        && sourceToken != null && !tokenRevocationService.isRevoked(sourceToken)) {
+
+                    // Estado actual del usuario (ya en caché por JwtAuthenticationFilter): el token
+                    // nuevo lleva sus roles e id de hoy, no los del token que se renueva
+                    String username = claims.getSubject();
+                    UserSecurityState userState = userSecurityCache.get(username);
+
+                    if (!userState.locked()) {
+                        String newJwt = renewedTokens.getOrRenew(sourceToken, claims.getExpiration().getTime(),
+                                System.currentTimeMillis(), () -> {
+                                    // Generar el nuevo token (una sola vez por token de origen)
+                                    String renewed = tokenProvider.renewToken(username, userState);
+                                    logger.info("Token JWT renovado para el usuario: " + username);
+                                    return renewed;
+                                });
 
                         // Devolver el nuevo token en un encabezado CUSTOM (X-New-Token).
                         response.setHeader("X-New-Token", newJwt);
-                        logger.info("Token JWT renovado para el usuario: " + user.getUsername());
                     }
                 }
             }
@@ -0,0 +1,97 @@
+package com.telconova.suportsuite.security;
+
+/**
+ * Resumen de 128 bits de un token, en dos long, calculado sin crear objetos.
+ * En un JWT firmado se toman los primeros 128 bits de la firma (HMAC-SHA512): ya son un resumen
+ * criptográfico del token y no hace falta volver a calcular otro. Para textos que no son un JWS
+ * se usa un hash de 128 bits no criptográfico; en ese caso una colisión solo haría ver como
+ * revocado un token que de todos modos no es válido.
+ */
+public final class TokenDigest {
+
+    // 22 caracteres Base64URL = 132 bits; se usan 128 (11 caracteres por long, 66 -> 64 bits)
+    private static final int CHARS_PER_HALF = 11;
+
+    private TokenDigest() {
+    }
+
+    public static long high(CharSequence token) {
+        int signature = signatureStart(token);
+        return signature >= 0 ? decode(token, signature) : hash(token, 0x9E3779B97F4A7C15L);
+    }
+
+    public static long low(CharSequence token) {
+        int signature = signatureStart(token);
+        return signature >= 0 ? decode(token, signature + CHARS_PER_HALF) : hash(token, 0xC2B2AE3D27D4EB4FL);
+    }
+
+    /**
+     * Forma legible para logs (solo los primeros 16 dígitos: basta para correlacionar).
+     */
+    public static String toHex(long high) {
+        return String.format("%016x", high);
+    }
+
+    // Posición de la firma si el token es un JWS con al menos 22 caracteres Base64URL de firma; -1 si no
+    private static int signatureStart(CharSequence token) {
+        int lastDot = -1;
+        for (int i = token.length() - 1; i >= 0; i--) {
+            if (token.charAt(i) == '.') {
+                lastDot = i;
+                break;
+            }
+        }
+        int start = lastDot + 1;
+        if (lastDot < 0 || token.length() - start < 2 * CHARS_PER_HALF) {
+            return -1;
+        }
+        for (int i = start; i < start + 2 * CHARS_PER_HALF; i++) {
+            if (sextet(token.charAt(i)) < 0) {
+                return -1;
+            }
+        }
+        return start;
+    }
+
+    private static long decode(CharSequence token, int from) {
+        long bits = 0;
+        for (int i = from; i < from + CHARS_PER_HALF; i++) {
+            bits = (bits << 6) | sextet(token.charAt(i));
+        }
+        return bits;
+    }
+
+    private static int sextet(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 26;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 52;
+        }
+        if (c == '-' || c == '+') {
+            return 62;
+        }
+        if (c == '_' || c == '/') {
+            return 63;
+        }
+        return -1;
+    }
+
+    // FNV-1a de 64 bits con semilla y mezcla final (fmix64 de MurmurHash3)
+    private static long hash(CharSequence token, long seed) {
+        long h = seed ^ 0xCBF29CE484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            h ^= token.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,332 @@
+package com.telconova.suportsuite.security;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Tabla hash de direccionamiento abierto (sondeo lineal) de resumen de token (128 bits) a un
+ * long, en tres arreglos primitivos: sin objetos por entrada ni por consulta.
+ * Las lecturas son optimistas (StampedLock) y solo toman el candado de lectura si coincidieron
+ * con una escritura; las escrituras son exclusivas. Crece al doble manteniendo la ocupación en
+ * como mucho la mitad de la capacidad. Al llegar a maxEntries hay dos modos:
+ * - Sin descarte (constructor de un argumento): maxEntries es un tope blando y la tabla sigue
+ *   creciendo; put lo avisa devolviendo false. Para datos que no se pueden perder (revocaciones).
+ * - Con descarte: put descarta de una vez al menos evictionBatch entradas de menor valor (las
+ *   que llevan más tiempo sin uso, según lo que guarde quien la use), con un umbral estimado por
+ *   muestreo. El lote mínimo es maxEntries / 64, así llenarse no cuesta un recorrido completo
+ *   por cada inserción.
+ */
+final class TokenDigestTable {
+
+    /** Recibe cada entrada eliminada por removeUpTo o descartada por estar llena. */
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(long high, long low, long value);
+    }
+
+    /** Valor de get para un resumen que no está; no se puede guardar como valor. */
+    static final long ABSENT = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int EVICTION_SAMPLE = 64;
+    private static final int MIN_EVICTION_FRACTION = 64;
+    // Mayor potencia de dos que admite un arreglo
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final StampedLock lock = new StampedLock();
+    private final int maxEntries;
+    private final int maxCapacity;
+    private final boolean evicting;
+    private final int evictionBatch;
+    private final EntryConsumer evicted;
+
+    // Los tres arreglos se reemplazan juntos, así una lectura optimista nunca mezcla tamaños
+    private Slots slots;
+    private int size;
+    // Cota inferior de los valores guardados: permite saber sin recorrer si hay algo que purgar
+    private volatile long minValue = Long.MAX_VALUE;
+
+    /**
+     * Tabla sin descarte: pasado maxEntries sigue creciendo y nunca pierde una entrada por
+     * estar llena.
+     */
+    TokenDigestTable(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxCapacity = MAX_CAPACITY;
+        this.evicting = false;
+        this.evictionBatch = 0;
+        this.evicted = null;
+        this.slots = new Slots(Math.min(INITIAL_CAPACITY, capacityFor(this.maxEntries)));
+    }
+
+    /**
+     * Tabla con descarte. evicted (opcional) recibe las entradas descartadas por estar llena,
+     * con el candado de escritura tomado: no debe volver a usar esta tabla.
+     */
+    TokenDigestTable(int maxEntries, int evictionBatch, EntryConsumer evicted) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxCapacity = capacityFor(this.maxEntries);
+        this.evicting = true;
+        int minBatch = Math.max(1, this.maxEntries / MIN_EVICTION_FRACTION);
+        this.evictionBatch = Math.min(Math.max(evictionBatch, minBatch), this.maxEntries);
+        this.evicted = evicted;
+        this.slots = new Slots(Math.min(INITIAL_CAPACITY, maxCapacity));
+    }
+
+    long get(long high, long low) {
+        long stamp = lock.tryOptimisticRead();
+        long value = slots.find(high, low);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = slots.find(high, low);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Guarda o reemplaza el valor. Devuelve false si la tabla estaba en maxEntries: con descarte,
+     * se descartaron otras entradas; sin descarte, creció por encima del tope blando.
+     * Sin descarte lanza IllegalStateException solo si ya no cabe en un arreglo.
+     */
+    boolean put(long high, long low, long value) {
+        checkValue(value);
+        long stamp = lock.writeLock();
+        try {
+            return putLocked(high, low, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Guarda el valor solo si es mayor que el actual (o no había), de forma atómica. Para marcas
+     * de tiempo que solo avanzan; si ya está al día no toma el candado de escritura.
+     */
+    void putIfGreater(long high, long low, long value) {
+        checkValue(value);
+        long current = get(high, low);
+        if (current != ABSENT && current >= value) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            current = slots.find(high, low);
+            if (current == ABSENT || current < value) {
+                putLocked(high, low, value);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    boolean remove(long high, long low) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slots.slotOf(high, low);
+            if (slots.values[slot] == ABSENT) {
+                return false;
+            }
+            slots.deleteAt(slot);
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Elimina las entradas con valor menor o igual que threshold. Si ninguna lo está, no
+     * recorre la tabla. Devuelve cuántas eliminó.
+     */
+    int removeUpTo(long threshold) {
+        return removeUpTo(threshold, null);
+    }
+
+    /**
+     * Como removeUpTo(threshold), entregando cada entrada eliminada a removed (con el candado
+     * de escritura tomado: no debe volver a usar esta tabla).
+     */
+    int removeUpTo(long threshold, EntryConsumer removed) {
+        if (minValue > threshold) {
+            return 0;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int before = size;
+            rehash(slots.highs.length, threshold, removed);
+            return before - size;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // --- Internos (con el candado de escritura tomado) ---
+
+    private boolean putLocked(long high, long low, long value) {
+        boolean full = false;
+        int slot = slots.slotOf(high, low);
+        if (slots.values[slot] == ABSENT) {
+            full = size >= maxEntries;
+            if (full && evicting) {
+                evictSmallest();
+            } else if (2L * (size + 1) > slots.highs.length) {
+                if (slots.highs.length >= maxCapacity) {
+                    // Solo sin descarte: maxCapacity acota la tabla con descarte por encima de maxEntries
+                    throw new IllegalStateException("Tabla de resúmenes sin capacidad: " + size);
+                }
+                rehash(slots.highs.length * 2, ABSENT, null);
+            }
+            slot = slots.slotOf(high, low);
+            size++;
+        }
+        slots.highs[slot] = high;
+        slots.lows[slot] = low;
+        slots.values[slot] = value;
+        if (value < minValue) {
+            minValue = value;
+        }
+        return !full;
+    }
+
+    // Un solo recorrido por lote: el umbral sale de una muestra y siempre incluye un valor
+    // guardado, así que descarta al menos una entrada
+    private void evictSmallest() {
+        long[] sample = slots.sample(EVICTION_SAMPLE);
+        Arrays.sort(sample);
+        int position = (int) Math.min(sample.length - 1L, (long) sample.length * evictionBatch / size);
+        rehash(slots.highs.length, sample[position], evicted);
+    }
+
+    // Copia a arreglos nuevos de la capacidad indicada, sin las entradas con valor <= dropUpTo
+    private void rehash(int capacity, long dropUpTo, EntryConsumer removed) {
+        Slots old = slots;
+        Slots fresh = new Slots(capacity);
+        int kept = 0;
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < old.values.length; i++) {
+            long value = old.values[i];
+            if (value != ABSENT && value <= dropUpTo && removed != null) {
+                removed.accept(old.highs[i], old.lows[i], value);
+            }
+            if (value != ABSENT && value > dropUpTo) {
+                int slot = fresh.slotOf(old.highs[i], old.lows[i]);
+                fresh.highs[slot] = old.highs[i];
+                fresh.lows[slot] = old.lows[i];
+                fresh.values[slot] = value;
+                kept++;
+                min = Math.min(min, value);
+            }
+        }
+        slots = fresh;
+        size = kept;
+        minValue = min;
+    }
+
+    private static void checkValue(long value) {
+        if (value == ABSENT) {
+            throw new IllegalArgumentException("Valor reservado");
+        }
+    }
+
+    // Potencia de dos con al menos el doble de entradas (ocupación máxima del 50%)
+    private static int capacityFor(int entries) {
+        return Integer.highestOneBit(Math.max(2, entries) * 2 - 1) * 2;
+    }
+
+    private static final class Slots {
+
+        final long[] highs;
+        final long[] lows;
+        final long[] values;
+
+        Slots(int capacity) {
+            highs = new long[capacity];
+            lows = new long[capacity];
+            values = new long[capacity];
+            Arrays.fill(values, ABSENT);
+        }
+
+        long find(long high, long low) {
+            int mask = highs.length - 1;
+            int slot = index(high, low) & mask;
+            // Acotado por la capacidad: con una lectura optimista inconsistente también termina
+            for (int probes = 0; probes < highs.length; probes++) {
+                long value = values[slot];
+                if (value == ABSENT) {
+                    return ABSENT;
+                }
+                if (highs[slot] == high && lows[slot] == low) {
+                    return value;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return ABSENT;
+        }
+
+        // Posición del resumen, o la libre donde iría
+        int slotOf(long high, long low) {
+            int mask = highs.length - 1;
+            int slot = index(high, low) & mask;
+            while (values[slot] != ABSENT && (highs[slot] != high || lows[slot] != low)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        // Valores de hasta count posiciones ocupadas, repartidas por la tabla
+        long[] sample(int count) {
+            long[] sample = new long[count];
+            int found = 0;
+            int step = Math.max(1, values.length / count);
+            for (int start = 0; start < step && found < count; start++) {
+                for (int i = start; i < values.length && found < count; i += step) {
+                    if (values[i] != ABSENT) {
+                        sample[found++] = values[i];
+                    }
+                }
+            }
+            return Arrays.copyOf(sample, found);
+        }
+
+        // Borrado con desplazamiento hacia atrás: la tabla no acumula marcas de borrado
+        void deleteAt(int slot) {
+            int mask = highs.length - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (values[next] != ABSENT) {
+                int home = index(highs[next], lows[next]) & mask;
+                // La entrada puede ocupar el hueco si su posición inicial no está entre el hueco y ella
+                boolean movable = hole <= next
+                        ? (home <= hole || home > next)
+                        : (home <= hole && home > next);
+                if (movable) {
+                    highs[hole] = highs[next];
+                    lows[hole] = lows[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            values[hole] = ABSENT;
+        }
+
+        private static int index(long high, long low) {
+            long mixed = high ^ Long.rotateLeft(low, 31);
+            mixed *= 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+}
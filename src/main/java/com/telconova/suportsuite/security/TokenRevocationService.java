@@ -1,29 +1,109 @@
 package com.telconova.suportsuite.security;
 
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentHashMap;
+
+import java.util.concurrent.TimeUnit;
 
 /**
  * Servicio que gestiona la Lista Negra (Blacklist) de tokens revocados en memoria.
  * Permite bloquear tokens después de la inactividad o un nuevo inicio de sesión.
+ * Cada token se guarda como su resumen de 128 bits (TokenDigest) con su propia expiración
+ * (long), en una tabla de arreglos primitivos. La expiración se redondea hacia arriba a cubetas
+ * de bucket-ms y en cada cubeta se descartan los tokens que ya habrían expirado de todos modos.
+ * isRevoked no crea objetos.
+ * La lista falla cerrada: max-entries es un tope blando. Al alcanzarlo se purgan antes las
+ * revocaciones expiradas y, si no alcanza, la tabla crece; nunca se descarta una revocación
+ * vigente. Cada inserción por encima del tope cuenta en security.tokens.revoked.over-capacity.
  */
+@Slf4j
 @Service
 public class TokenRevocationService {
 
-    // CLAVE: JWT (String) | VALOR: Tiempo de Revocación (LocalDateTime)
-    private final ConcurrentHashMap<String, LocalDateTime> revokedTokens = new ConcurrentHashMap<>();
+    private final JwtTokenProvider tokenProvider;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.revocation.max-entries:200000}")
+    private int maxEntries;
+
+    @Value("${security.revocation.bucket-ms:60000}")
+    private long bucketMs;
+
+    // Vida asumida para lo que no se puede interpretar como JWT (no debería ocurrir)
+    @Value("${jwt.expiration.minutes:15}")
+    private long fallbackLifetimeMinutes;
+
+    // Como mucho unas pocas líneas por minuto en los caminos calientes, con el conteo de omitidas
+    private final RateLimitedLog revocationLog = new RateLimitedLog(60_000, 20);
+    private final RateLimitedLog deniedLog = new RateLimitedLog(60_000, 20);
+    private final RateLimitedLog overCapacityLog = new RateLimitedLog(60_000, 1);
+
+    private TokenDigestTable revokedTokens;
+    private Counter revocations;
+    private Counter deniedHits;
+    private Counter overCapacity;
+
+    public TokenRevocationService(JwtTokenProvider tokenProvider, MeterRegistry meterRegistry) {
+        this.tokenProvider = tokenProvider;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        revokedTokens = new TokenDigestTable(maxEntries);
+        revocations = Counter.builder("security.tokens.revoked")
+                .description("Tokens agregados a la lista negra")
+                .register(meterRegistry);
+        deniedHits = Counter.builder("security.tokens.revoked.hits")
+                .description("Peticiones rechazadas por token revocado")
+                .register(meterRegistry);
+        overCapacity = Counter.builder("security.tokens.revoked.over-capacity")
+                .description("Revocaciones guardadas con la lista negra por encima de max-entries")
+                .register(meterRegistry);
+        Gauge.builder("security.tokens.revoked.size", revokedTokens, TokenDigestTable::size)
+                .description("Tokens revocados aún vigentes en memoria")
+                .register(meterRegistry);
+    }
 
     /**
-     * Agrega un token a la lista negra.
+     * Agrega un token a la lista negra hasta su expiración original.
      * @param token El JWT a revocar.
      */
     public void revokeToken(String token) {
-        // Almacenamos el token en la lista negra.
-        // NOTA: En un sistema real, se debería limpiar periódicamente
-        // los tokens que ya superaron el tiempo de vida (expiración original).
-        System.out.println(">>> [DEBUG REVOCATION] Token REVOCADO: " + token.substring(0, 20) + "...");
-        revokedTokens.put(token, LocalDateTime.now());
+        long now = System.currentTimeMillis();
+        long expiresAtMs = expirationOf(token, now);
+        if (expiresAtMs <= now) {
+            // Ya expiró: la validación del JWT lo rechaza sin necesidad de guardarlo
+            return;
+        }
+        long high = TokenDigest.high(token);
+        store(high, TokenDigest.low(token), expiresAtMs, now);
+        revocations.increment();
+
+        if (revocationLog.tryAcquire(now)) {
+            log.info("event=token_revoked digest={} expires_in_s={} suppressed={}",
+                    TokenDigest.toHex(high), (expiresAtMs - now) / 1000, revocationLog.drainSuppressed());
+        }
+    }
+
+    /**
+     * Revoca por resumen, cuando ya no se tiene el token (p. ej. sesiones inactivas que descarta
+     * SessionActivityTracker). expiresAtMs debe ser igual o posterior a la expiración real.
+     */
+    void revokeDigest(long high, long low, long expiresAtMs) {
+        long now = System.currentTimeMillis();
+        if (expiresAtMs <= now) {
+            return;
+        }
+        store(high, low, expiresAtMs, now);
+        revocations.increment();
     }
 
     /**
@@ -32,23 +112,73 @@ public class TokenRevocationService {
      * @return true si el token está en la lista negra.
      */
     public boolean isRevoked(String token) {
-        boolean revoked = revokedTokens.containsKey(token);
-        // Añade este log para confirmar que la verificación se realiza
-        if (revoked) {
-            System.out.println(">>> [DEBUG REVOCATION] Token ENCONTRADO como revocado. ACCESO DENEGADO.");
-        } else {
-            // Solo si quieres ver todas las verificaciones
-            // System.out.println(">>> [DEBUG REVOCATION] Token NO revocado.");
+        long high = TokenDigest.high(token);
+        long expiresAtMs = revokedTokens.get(high, TokenDigest.low(token));
+        if (expiresAtMs == TokenDigestTable.ABSENT) {
+            return false;
         }
-        return revoked;
+        long now = System.currentTimeMillis();
+        if (expiresAtMs <= now) {
+            // Pendiente de purga: el token ya expiró y lo rechaza la validación del JWT
+            return false;
+        }
+        deniedHits.increment();
+        if (deniedLog.tryAcquire(now)) {
+            log.warn("event=revoked_token_denied digest={} suppressed={}",
+                    TokenDigest.toHex(high), deniedLog.drainSuppressed());
+        }
+        return true;
     }
 
     /**
      * Elimina un token de la lista negra.
-     * Útil si decides implementar una limpieza por tiempo de vida.
      * @param token El JWT a limpiar.
      */
     public void unrevokeToken(String token) {
-        revokedTokens.remove(token);
+        revokedTokens.remove(TokenDigest.high(token), TokenDigest.low(token));
+    }
+
+    public int size() {
+        return revokedTokens.size();
+    }
+
+    /**
+     * Al cerrar cada cubeta descarta los tokens que ya expiraron; si ninguno, no recorre la tabla.
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.bucket-ms:60000}")
+    public void purgeExpired() {
+        int purged = revokedTokens.removeUpTo(System.currentTimeMillis());
+        if (purged > 0) {
+            log.debug("event=revocations_purged count={} remaining={}", purged, revokedTokens.size());
+        }
+    }
+
+    // Lleno, primero purga lo expirado (sin recorrer si no hay nada); si aun así supera
+    // max-entries la tabla crece: revocar nunca saca de la lista otra revocación vigente
+    private void store(long high, long low, long expiresAtMs, long now) {
+        if (revokedTokens.size() >= maxEntries) {
+            revokedTokens.removeUpTo(now);
+        }
+        if (!revokedTokens.put(high, low, roundUpToBucket(expiresAtMs))) {
+            overCapacity.increment();
+            if (overCapacityLog.tryAcquire(now)) {
+                log.error("event=revocation_store_over_capacity max_entries={} size={} action=grown suppressed={}",
+                        maxEntries, revokedTokens.size(), overCapacityLog.drainSuppressed());
+            }
+        }
+    }
+
+    private long expirationOf(String token, long now) {
+        try {
+            return tokenProvider.getClaims(token).getExpiration().getTime();
+        } catch (ExpiredJwtException e) {
+            return e.getClaims().getExpiration().getTime();
+        } catch (Exception e) {
+            return now + TimeUnit.MINUTES.toMillis(fallbackLifetimeMinutes);
+        }
+    }
+
+    private long roundUpToBucket(long timeMs) {
+        return bucketMs > 0 ? ((timeMs + bucketMs - 1) / bucketMs) * bucketMs : timeMs;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+package com.telconova.suportsuite.security;
+
+import com.telconova.suportsuite.entity.User;
+import com.telconova.suportsuite.repository.UserRepository;
+import com.telconova.suportsuite.service.CustomUserDetailsService;
+import com.telconova.suportsuite.service.UserChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado de seguridad de los usuarios autenticados por JWT (bloqueo, UserDetails, id y roles), para no
+ * consultar tn_user dos veces en cada petición. Un fallo carga el usuario con una sola consulta.
+ * Cada entrada vale ttl-ms; además, al confirmarse un bloqueo o desbloqueo en
+ * SecurityPersistenceServiceImpl (UserChangedEvent) se descarta la del usuario, así el bloqueo
+ * se aplica en la siguiente petición sin esperar al TTL.
+ * Las authorities del claim "roles" se internan: cada combinación de roles es una única lista
+ * inmutable compartida entre peticiones.
+ */
+@Slf4j
+@Component
+public class UserSecurityCache {
+
+    // Combinaciones de roles distintas que se internan; por encima se crean en cada petición
+    private static final int MAX_INTERNED_ROLE_SETS = 256;
+
+    private final UserRepository userRepository;
+    private final CustomUserDetailsService userDetailsService;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<GrantedAuthority>> internedAuthorities = new ConcurrentHashMap<>();
+    // Sube con cada invalidación: una carga que empezó antes no se guarda (podría traer el estado viejo)
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Value("${security.user-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    @Value("${security.user-cache.max-entries:10000}")
+    private int maxEntries;
+
+    public UserSecurityCache(UserRepository userRepository, CustomUserDetailsService userDetailsService) {
+        this.userRepository = userRepository;
+        this.userDetailsService = userDetailsService;
+    }
+
+    /**
+     * Estado del usuario desde la caché o, si no está o venció, desde la BD.
+     * Lanza UsernameNotFoundException si el usuario no existe.
+     */
+    public UserSecurityState get(String username) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(username);
+        if (entry != null && now - entry.loadedAtNanos() < TimeUnit.MILLISECONDS.toNanos(ttlMs)) {
+            return entry.state();
+        }
+
+        long stamp = invalidations.get();
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+        UserSecurityState state = new UserSecurityState(user.isLocked(), userDetailsService.toUserDetails(user),
+                user.getId(), user.getRoles());
+        store(username, new Entry(state, now), stamp);
+        return state;
+    }
+
+    /**
+     * Authorities del claim "roles" (un String con roles separados por comas o una lista),
+     * con el prefijo ROLE_. Devuelve siempre la misma lista para la misma combinación.
+     */
+    public List<GrantedAuthority> authoritiesFor(Object rolesClaim) {
+        String key;
+        if (rolesClaim instanceof String roles) {
+            key = roles;
+        } else if (rolesClaim instanceof Collection<?> roles) {
+            key = String.join(",", roles.stream().map(String::valueOf).toList());
+        } else {
+            return List.of();
+        }
+
+        List<GrantedAuthority> interned = internedAuthorities.get(key);
+        if (interned != null) {
+            return interned;
+        }
+        List<GrantedAuthority> authorities = parseAuthorities(key);
+        if (internedAuthorities.size() < MAX_INTERNED_ROLE_SETS) {
+            List<GrantedAuthority> previous = internedAuthorities.putIfAbsent(key, authorities);
+            return previous != null ? previous : authorities;
+        }
+        return authorities;
+    }
+
+    public void invalidate(String username) {
+        invalidations.incrementAndGet();
+        entries.remove(username);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Al confirmar el bloqueo/desbloqueo: una recarga posterior ya ve el estado nuevo
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.user().username());
+        log.debug("Estado de seguridad del usuario {} descartado de la caché.", event.user().username());
+    }
+
+    private void store(String username, Entry entry, long stamp) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+            entries.values().removeIf(existing -> entry.loadedAtNanos() - existing.loadedAtNanos() >= ttlNanos);
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(username, entry);
+        // Si hubo una invalidación durante la carga, lo guardado puede ser el estado anterior
+        if (invalidations.get() != stamp) {
+            entries.remove(username, entry);
+        }
+    }
+
+    private static List<GrantedAuthority> parseAuthorities(String roles) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String role : roles.split(",")) {
+            String trimmed = role.trim();
+            if (!trimmed.isEmpty()) {
+                authorities.add(new SimpleGrantedAuthority("ROLE_" + trimmed));
+            }
+        }
+        return List.copyOf(authorities);
+    }
+
+    // userId y roles son los de tn_user, no los del token: con ellos se firma la renovación
+    public record UserSecurityState(boolean locked, UserDetails userDetails, Long userId, String roles) {
+    }
+
+    private record Entry(UserSecurityState state, long loadedAtNanos) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.telconova.suportsuite.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens cuya firma ya se verificó, con sus claims, para no repetir el HMAC en cada petición
+ * del mismo cliente. La clave es el token completo (firma incluida): solo acierta con
+ * exactamente los mismos bytes ya verificados.
+ * Cada entrada vale hasta la expiración del token; una vencida no se devuelve y el token se
+ * vuelve a verificar (lo que produce el ExpiredJwtException de siempre). Está acotado a
+ * max-entries: lleno, primero descarta las vencidas y, si no alcanza, deja de guardar.
+ * La revocación no pasa por aquí: se sigue consultando en cada petición.
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * Claims del token si ya se verificó y no ha expirado; null en otro caso.
+     */
+    public Claims get(String token, long nowMs) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMs() <= nowMs) {
+            entries.remove(token, entry);
+            return null;
+        }
+        return entry.claims();
+    }
+
+    public void put(String token, Claims claims, long nowMs) {
+        Date expiration = claims.getExpiration();
+        if (maxEntries <= 0 || expiration == null || expiration.getTime() <= nowMs) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evictExpired(nowMs);
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(token, new Entry(claims, expiration.getTime()));
+    }
+
+    public void invalidate(String token) {
+        entries.remove(token);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.cache.evict-interval-ms:60000}")
+    public void evictExpired() {
+        int before = entries.size();
+        evictExpired(System.currentTimeMillis());
+        if (before != entries.size()) {
+            log.debug("Caché de tokens verificados: {} vencidos descartados.", before - entries.size());
+        }
+    }
+
+    private void evictExpired(long nowMs) {
+        entries.values().removeIf(entry -> entry.expiresAtMs() <= nowMs);
+    }
+
+    private record Entry(Claims claims, long expiresAtMs) {
+    }
+}
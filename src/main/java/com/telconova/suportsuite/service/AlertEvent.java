@@ -0,0 +1,13 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.EventTrigger;
+
+import java.util.Map;
+
+/**
+ * Evento pendiente de evaluar. priority es la de su regla más urgente (menor valor = más urgente)
+ * y decide el orden de evaluación y qué se descarta primero si el buffer se llena.
+ * dedupKey es la clave de deduplicación (EventDeduplicator), o null si el evento no tiene.
+ */
+public record AlertEvent(EventTrigger type, Map<String, Object> data, int priority, String dedupKey) {
+}
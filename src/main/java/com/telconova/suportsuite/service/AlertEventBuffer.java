@@ -0,0 +1,397 @@
+package com.telconova.suportsuite.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telconova.suportsuite.entity.EventTrigger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Etapa asíncrona de ingestión de eventos de alerta.
+ * processEvent solo encola el evento en un buffer acotado sin bloqueos (una MpmcRingBuffer por
+ * carril de prioridad) y vuelve; un pool de evaluadores lo drena, de los carriles más urgentes
+ * a los menos, y ejecuta AlertEventEvaluator. Así el costo de reglas, plantillas y
+ * destinatarios no lo paga la operación de tickets que originó el evento.
+ *
+ * Si el buffer se llena se aplica alerts.events.overflow-policy:
+ *   BLOCK                espera hasta block-timeout-ms a que haya lugar (contrapresión) y, si
+ *                        no, lo vuelca a disco como SPILL_TO_DISK: la evaluación nunca corre
+ *                        en el hilo que originó el evento;
+ *   DROP_LOWEST_PRIORITY descarta el evento más antiguo del carril menos urgente que el nuevo,
+ *                        o el nuevo si no hay ninguno menos urgente (su clave de deduplicación
+ *                        se libera, así un reintento del productor no se descarta);
+ *   SPILL_TO_DISK        lo vuelca a un archivo JSON lines que los evaluadores reprocesan
+ *                        cuando el buffer queda vacío (también tras un reinicio).
+ * Un evento que no se puede volcar se descarta y se cuenta en alerts.events.dropped.
+ * Los evaluadores sin trabajo esperan en un semáforo que liberan los productores al encolar o
+ * volcar, en lugar de despertar cada milisegundo.
+ */
+@Slf4j
+@Component
+public class AlertEventBuffer implements SmartLifecycle {
+
+    public enum OverflowPolicy { BLOCK, DROP_LOWEST_PRIORITY, SPILL_TO_DISK }
+
+    private static final String SPILL_FILE = "alert-events.jsonl";
+    private static final String REPLAY_SUFFIX = ".replay";
+    // Respaldo por si se perdiera una señal: un evaluador ocioso despierta como mucho una vez por segundo
+    private static final long IDLE_WAIT_MS = 1000;
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AlertRuleIndex alertRuleIndex;
+    private final AlertEventEvaluator evaluator;
+    private final EventDeduplicator deduplicator;
+    private final NotificationLanes lanes;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${alerts.events.capacity:10000}")
+    private int capacity;
+
+    @Value("${alerts.events.overflow-policy:BLOCK}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${alerts.events.block-timeout-ms:1000}")
+    private long blockTimeoutMs;
+
+    @Value("${alerts.events.evaluators:2}")
+    private int evaluatorCount;
+
+    @Value("${alerts.events.spill-dir:${java.io.tmpdir}/suportsuite-alert-events}")
+    private Path spillDir;
+
+    private final List<MpmcRingBuffer<AlertEvent>> rings = new ArrayList<>();
+    // Total entre carriles; es el que acota la capacidad, cada anillo admite el total
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean spillPending = new AtomicBoolean();
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    private final Object spillLock = new Object();
+    private final List<Thread> evaluators = new ArrayList<>();
+    // Un permiso por evento encolado o volcado; sobran si otro evaluador ya lo tomó (solo
+    // cuesta una vuelta más del bucle), nunca faltan
+    private final Semaphore workAvailable = new Semaphore(0);
+    private Counter overflow;
+    private Counter dropped;
+    private volatile boolean running;
+
+    public AlertEventBuffer(AlertRuleIndex alertRuleIndex,
+                            AlertEventEvaluator evaluator,
+                            EventDeduplicator deduplicator,
+                            NotificationLanes lanes,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.alertRuleIndex = alertRuleIndex;
+        this.evaluator = evaluator;
+        this.deduplicator = deduplicator;
+        this.lanes = lanes;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("alerts.events.buffer.depth", size, AtomicInteger::get)
+                .description("Eventos de alerta pendientes de evaluar")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        for (int i = 0; i < lanes.all().size(); i++) {
+            rings.add(new MpmcRingBuffer<>(capacity));
+        }
+        overflow = Counter.builder("alerts.events.overflow")
+                .description("Eventos que encontraron el buffer lleno")
+                .tag("policy", overflowPolicy.name())
+                .register(meterRegistry);
+        dropped = Counter.builder("alerts.events.dropped")
+                .description("Eventos de alerta descartados sin evaluar (buffer lleno o volcado a disco fallido)")
+                .register(meterRegistry);
+        spillPending.set(hasSpilledEvents());
+
+        running = true;
+        for (int i = 0; i < evaluatorCount; i++) {
+            evaluators.add(Thread.ofPlatform().name("alert-evaluator-" + (i + 1)).start(this::runEvaluator));
+        }
+        log.info("Buffer de eventos de alerta: capacidad {}, {} evaluadores, política {}.",
+                capacity, evaluatorCount, overflowPolicy);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        workAvailable.release(evaluators.size());
+        try {
+            for (Thread thread : evaluators) {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        evaluators.clear();
+
+        // Lo que se encoló mientras los evaluadores terminaban se evalúa aquí
+        AlertEvent event;
+        while ((event = poll()) != null) {
+            evaluate(event);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Encola el evento sin bloquear (salvo con la política BLOCK y el buffer lleno).
+     * Los duplicados dentro de la ventana de deduplicación se descartan aquí, sin E/S.
+     */
+    public void submit(EventTrigger eventType, Map<String, Object> eventData, String idempotencyKey) {
+        CompiledRule[] rules = alertRuleIndex.rulesFor(eventType);
+        if (rules.length == 0) {
+            log.debug("No hay reglas activas para el evento: {}", eventType);
+            return;
+        }
+        String dedupKey = deduplicator.keyFor(eventType, eventData, idempotencyKey);
+        if (dedupKey != null && !deduplicator.firstSeen(dedupKey)) {
+            log.debug("Evento duplicado descartado: {}", dedupKey);
+            return;
+        }
+        AlertEvent event = new AlertEvent(eventType, eventData, mostUrgentPriority(rules), dedupKey);
+
+        if (!running) {
+            // Antes de arrancar o durante el apagado no hay evaluadores
+            evaluate(event);
+            return;
+        }
+        if (tryEnqueue(event)) {
+            return;
+        }
+
+        overflow.increment();
+        switch (overflowPolicy) {
+            case BLOCK -> block(event);
+            case DROP_LOWEST_PRIORITY -> dropLowestPriority(event);
+            case SPILL_TO_DISK -> spill(event);
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private boolean tryEnqueue(AlertEvent event) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        if (!rings.get(band(event)).offer(event)) {
+            size.decrementAndGet();
+            return false;
+        }
+        workAvailable.release();
+        return true;
+    }
+
+    private AlertEvent poll() {
+        for (MpmcRingBuffer<AlertEvent> ring : rings) {
+            AlertEvent event = ring.poll();
+            if (event != null) {
+                size.decrementAndGet();
+                return event;
+            }
+        }
+        return null;
+    }
+
+    private void block(AlertEvent event) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (tryEnqueue(event)) {
+                return;
+            }
+        }
+        log.warn("Buffer de eventos lleno tras {} ms: el evento {} se vuelca a disco.",
+                blockTimeoutMs, event.type());
+        spill(event);
+    }
+
+    private void dropLowestPriority(AlertEvent event) {
+        for (int band = rings.size() - 1; band > band(event); band--) {
+            AlertEvent victim = rings.get(band).poll();
+            if (victim != null) {
+                size.decrementAndGet();
+                log.warn("Buffer de eventos lleno: se descarta el evento {} (prioridad {}) por uno de prioridad {}.",
+                        victim.type(), victim.priority(), event.priority());
+                drop(victim);
+                if (tryEnqueue(event)) {
+                    return;
+                }
+                break;
+            }
+        }
+        log.warn("Buffer de eventos lleno: se descarta el evento {} (prioridad {}).", event.type(), event.priority());
+        drop(event);
+    }
+
+    private void spill(AlertEvent event) {
+        try {
+            String line = objectMapper.writeValueAsString(event) + System.lineSeparator();
+            synchronized (spillLock) {
+                Files.createDirectories(spillDir);
+                Files.writeString(spillDir.resolve(SPILL_FILE), line,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            spillPending.set(true);
+            workAvailable.release();
+        } catch (IOException e) {
+            log.error("No se pudo volcar el evento {} a disco ({}); se descarta.", event.type(), e.getMessage());
+            drop(event);
+        }
+    }
+
+    // Su clave de deduplicación se libera: un reintento del productor no se descarta
+    private void drop(AlertEvent event) {
+        dropped.increment();
+        releaseDedupKey(event, false);
+    }
+
+    private void runEvaluator() {
+        while (running || size.get() > 0) {
+            AlertEvent event = poll();
+            if (event != null) {
+                evaluate(event);
+            } else if (!replaySpilled() && running) {
+                try {
+                    workAvailable.tryAcquire(IDLE_WAIT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reprocesa los eventos volcados a disco. El archivo se renombra antes de leerlo, así los
+     * nuevos volcados van a uno nuevo; un .replay que quedó a medias por un reinicio se
+     * reprocesa completo al arrancar.
+     */
+    private boolean replaySpilled() {
+        if (!spillPending.get() || !replaying.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            spillPending.set(false);
+            List<Path> files;
+            synchronized (spillLock) {
+                Path spillFile = spillDir.resolve(SPILL_FILE);
+                if (Files.exists(spillFile)) {
+                    Files.move(spillFile, spillDir.resolve("alert-events-" + System.nanoTime() + REPLAY_SUFFIX));
+                }
+                files = listReplayFiles();
+            }
+            for (Path file : files) {
+                replayFile(file);
+            }
+            return !files.isEmpty();
+        } catch (IOException e) {
+            log.error("Error reprocesando eventos volcados a disco: {}", e.getMessage());
+            return false;
+        } finally {
+            replaying.set(false);
+        }
+    }
+
+    private void replayFile(Path file) throws IOException {
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    evaluate(objectMapper.readValue(line, AlertEvent.class));
+                    replayed++;
+                } catch (IOException e) {
+                    log.error("Evento volcado ilegible en {}: {}", file.getFileName(), e.getMessage());
+                }
+            }
+        }
+        Files.deleteIfExists(file);
+        log.info("Reprocesados {} eventos volcados a disco ({}).", replayed, file.getFileName());
+    }
+
+    private boolean hasSpilledEvents() {
+        try {
+            return Files.exists(spillDir.resolve(SPILL_FILE)) || !listReplayFiles().isEmpty();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private List<Path> listReplayFiles() throws IOException {
+        if (!Files.isDirectory(spillDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(spillDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(REPLAY_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void evaluate(AlertEvent event) {
+        boolean claimed = false;
+        try {
+            // Otro nodo pudo recibir el mismo evento: la clave única en la BD decide quién lo evalúa
+            if (event.dedupKey() != null && !deduplicator.claim(event.dedupKey())) {
+                log.debug("Evento duplicado en otro nodo descartado: {}", event.dedupKey());
+                return;
+            }
+            claimed = true;
+            if (!evaluator.evaluate(event.type(), event.data())) {
+                // Alguna regla falló: mejor un posible duplicado en el reintento que una alerta perdida
+                releaseDedupKey(event, true);
+            }
+        } catch (RuntimeException e) {
+            log.error("Error evaluando evento {}: {}", event.type(), e.getMessage(), e);
+            releaseDedupKey(event, claimed);
+        }
+    }
+
+    private void releaseDedupKey(AlertEvent event, boolean claimed) {
+        if (event.dedupKey() != null) {
+            deduplicator.release(event.dedupKey(), claimed);
+        }
+    }
+
+    private int band(AlertEvent event) {
+        return lanes.forPriority(event.priority()).index();
+    }
+
+    private static int mostUrgentPriority(CompiledRule[] rules) {
+        int priority = Integer.MAX_VALUE;
+        for (CompiledRule rule : rules) {
+            priority = Math.min(priority, rule.priority() != null ? rule.priority() : 5);
+        }
+        return priority;
+    }
+}
@@ -0,0 +1,250 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.EventTrigger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluación de un evento contra las reglas activas: resuelve el público de cada regla y crea
+ * sus notificaciones. La ejecutan los evaluadores de AlertEventBuffer, fuera del hilo que
+ * originó el evento.
+ * Las reglas de un mismo evento son independientes: si son al menos parallel-threshold, se
+ * reparten entre hasta "parallelism" hilos virtuales (el evaluador incluido) que toman la
+ * siguiente regla libre, así el tiempo por evento no crece con el número de reglas.
+ * Las transacciones de fanOut abiertas a la vez están acotadas en total (todos los evaluadores
+ * y eventos comparten el límite) por max-concurrent-fanouts, por debajo del pool de conexiones:
+ * así siempre quedan conexiones para el despachador y las peticiones HTTP.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlertEventEvaluator {
+
+    private final AlertRuleIndex alertRuleIndex;
+    private final NotificationService notificationService;
+    private final AudienceRoster audienceRoster;
+    private final NotificationDigestBuffer digestBuffer;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${alerts.audience.chunk-size:500}")
+    private int audienceChunkSize;
+
+    // Hilos por evento evaluando reglas a la vez; 1 evalúa en serie en el hilo del evaluador
+    @Value("${alerts.rules.parallelism:4}")
+    private int parallelism;
+
+    // Con menos reglas que esto el evento se evalúa en serie (repartir no compensa)
+    @Value("${alerts.rules.parallel-threshold:4}")
+    private int parallelThreshold;
+
+    // Transacciones de fanOut a la vez en todo el nodo; debe quedar por debajo del pool Hikari
+    @Value("${alerts.rules.max-concurrent-fanouts:3}")
+    private int maxConcurrentFanOuts;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Timer evaluationTime;
+    private Semaphore fanOutPermits;
+
+    @PostConstruct
+    public void init() {
+        fanOutPermits = new Semaphore(Math.max(1, maxConcurrentFanOuts), true);
+        evaluationTime = Timer.builder("alerts.events.evaluation")
+                .description("Tiempo de evaluación de un evento contra todas sus reglas")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Quedaron reglas en evaluación al apagar el evaluador.");
+        }
+    }
+
+    /**
+     * Evalúa las reglas del evento y genera notificaciones automáticas.
+     * Devuelve false si alguna regla falló (el evento no se procesó completo).
+     */
+    public boolean evaluate(EventTrigger eventType, Map<String, Object> eventData) {
+        log.info("Procesando evento: {}", eventType);
+
+        // Obtener reglas activas para este tipo de evento (índice en memoria, sin consultar la BD)
+        CompiledRule[] rules = alertRuleIndex.rulesFor(eventType);
+
+        if (rules.length == 0) {
+            log.debug("No hay reglas activas para el evento: {}", eventType);
+            return true;
+        }
+
+        log.info("Encontradas {} reglas activas para el evento {}",
+                rules.length, eventType);
+
+        long start = System.nanoTime();
+        boolean completed = true;
+        int threads = Math.min(parallelism, rules.length);
+        if (threads > 1 && rules.length >= parallelThreshold) {
+            completed = evaluateInParallel(rules, eventData, threads);
+        } else {
+            // Procesar cada regla
+            for (CompiledRule rule : rules) {
+                completed &= processIsolated(rule, eventData);
+            }
+        }
+        evaluationTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return completed;
+    }
+
+    /**
+     * Reparte las reglas entre threads hilos: threads - 1 virtuales más el del evaluador, cada
+     * uno toma la siguiente regla sin procesar. Vuelve cuando todas terminaron, así el evento
+     * sigue contando como en curso hasta entonces (p. ej. al vaciar el buffer al apagar).
+     */
+    private boolean evaluateInParallel(CompiledRule[] rules, Map<String, Object> eventData, int threads) {
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < rules.length; i = next.getAndIncrement()) {
+                if (!processIsolated(rules[i], eventData)) {
+                    failed.set(true);
+                }
+            }
+        };
+
+        List<Future<?>> helpers = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            helpers.add(executor.submit(worker));
+        }
+        worker.run();
+
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Evaluación interrumpida esperando las reglas del evento.");
+                return false;
+            } catch (ExecutionException e) {
+                // processIsolated ya captura los errores de cada regla
+                log.error("Error inesperado evaluando reglas en paralelo: {}", e.getCause().getMessage(), e.getCause());
+                failed.set(true);
+            }
+        }
+        return !failed.get();
+    }
+
+    /**
+     * El error de una regla no afecta a las demás del mismo evento
+     */
+    private boolean processIsolated(CompiledRule rule, Map<String, Object> eventData) {
+        try {
+            processAlertRule(rule, eventData);
+            return true;
+        } catch (Exception e) {
+            log.error("Error procesando regla ID {}: {}",
+                    rule.id(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Procesa una regla específica y genera la notificación
+     */
+    private void processAlertRule(CompiledRule rule, Map<String, Object> eventData) {
+        log.debug("Evaluando regla: {} (ID: {})", rule.name(), rule.id());
+
+        // La condición ya viene interpretada desde el índice; evaluarla no crea objetos
+        if (!rule.condition().matches(eventData)) {
+            log.debug("El evento no cumple la condición de la regla ID {}: {}", rule.id(), rule.condition());
+            return;
+        }
+
+        // El targetAudience ya viene interpretado desde el índice de reglas, p. ej.
+        // {"role": "admin", "status": "active"}; si no era JSON válido no hay destinatarios
+        AudienceCriteria audience = rule.audience();
+        if (!audience.valid() || audience.isEmpty()) {
+            log.debug("La regla ID {} no tiene público objetivo válido", rule.id());
+            return;
+        }
+
+        // Generar contenido del mensaje desde el template (igual para todos los destinatarios)
+        String messageContent = generateMessageContent(rule, eventData);
+
+        // Los destinatarios llegan por bloques desde el roster en memoria
+        long recipients = audienceRoster.forEachChunk(audience, audienceChunkSize,
+                chunk -> createNotifications(rule, messageContent, chunk));
+
+        if (recipients == 0) {
+            log.debug("No hay destinatarios que cumplan el criterio de la regla ID: {}",
+                    rule.id());
+        }
+    }
+
+    /**
+     * Crea las notificaciones del bloque en lote: una transacción y lotes JDBC por bloque,
+     * o las acumula en resúmenes si la regla agrupa
+     */
+    private void createNotifications(CompiledRule rule, String messageContent, List<String> recipients) {
+        if (rule.coalesces()) {
+            // Se acumulan y salen como resumen al cerrar la ventana de la regla
+            for (String recipient : recipients) {
+                digestBuffer.add(rule, recipient, messageContent);
+            }
+            log.debug("{} notificaciones de la regla '{}' acumuladas para resumen",
+                    recipients.size(), rule.name());
+            return;
+        }
+
+        int created;
+        try {
+            fanOutPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando turno para crear notificaciones", e);
+        }
+        try {
+            created = notificationService.fanOut(rule, messageContent, recipients);
+        } finally {
+            fanOutPermits.release();
+        }
+
+        log.info("{} notificaciones automáticas creadas por regla '{}'",
+                created, rule.name());
+    }
+
+    /**
+     * Reemplaza variables dinámicas en el template, ya compilado en el índice de reglas
+     */
+    private String generateMessageContent(CompiledRule rule, Map<String, Object> eventData) {
+        CompiledTemplate template = rule.template();
+        if (template == null) {
+            throw new IllegalStateException("La regla no tiene plantilla de mensaje");
+        }
+
+        List<String> missing = template.missingVariables(eventData);
+        if (!missing.isEmpty()) {
+            log.warn("El evento no trae las variables {} de la plantilla de la regla ID {}",
+                    missing, rule.id());
+        }
+        return template.render(eventData);
+    }
+}
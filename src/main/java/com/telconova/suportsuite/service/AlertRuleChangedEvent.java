@@ -0,0 +1,8 @@
+package com.telconova.suportsuite.service;
+
+/**
+ * Se publica al crear, editar, activar, desactivar o eliminar una regla, o al cambiar una
+ * plantilla, para que AlertRuleIndex se reconstruya al confirmar la transacción.
+ */
+public record AlertRuleChangedEvent(String reason) {
+}
@@ -0,0 +1,164 @@
+package com.telconova.suportsuite.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telconova.suportsuite.entity.AlertRule;
+import com.telconova.suportsuite.entity.EventTrigger;
+import com.telconova.suportsuite.repository.AlertRuleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice en memoria de las reglas activas por EventTrigger.
+ * Es una instantánea inmutable que se reemplaza completa, así la evaluación de eventos no
+ * consulta la BD ni bloquea. Se reconstruye al confirmar cualquier cambio de reglas o
+ * plantillas; cada cambio incrementa además la versión en rule_index_version, y los demás
+ * nodos la comparan periódicamente con la suya para reconstruirse también.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlertRuleIndex {
+
+    private static final CompiledRule[] NO_RULES = new CompiledRule[0];
+
+    private final AlertRuleRepository alertRuleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MessageTemplateCache templateCache;
+
+    private volatile Snapshot snapshot = new Snapshot(-1, Collections.emptyMap());
+    // Sin la tabla rule_index_version el índice funciona solo con los cambios de este nodo
+    private volatile boolean versioned;
+
+    /**
+     * Reglas activas del evento, en el orden en que se cargaron. No consulta la BD.
+     */
+    public CompiledRule[] rulesFor(EventTrigger eventType) {
+        return snapshot.rules().getOrDefault(eventType, NO_RULES);
+    }
+
+    public long version() {
+        return snapshot.version();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        versioned = readVersion() != null;
+        if (!versioned) {
+            log.warn("Tabla rule_index_version no disponible: el índice de reglas no se sincronizará entre nodos.");
+        }
+        rebuild();
+    }
+
+    // En la misma transacción del cambio: si se revierte, la versión tampoco sube
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void bumpVersion(AlertRuleChangedEvent event) {
+        if (versioned) {
+            jdbcTemplate.update("UPDATE rule_index_version SET version = version + 1 WHERE id = 1");
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRulesChanged(AlertRuleChangedEvent event) {
+        log.info("Reconstruyendo índice de reglas ({}).", event.reason());
+        rebuild();
+    }
+
+    /**
+     * Reconstruye si otro nodo cambió las reglas desde la última carga.
+     */
+    @Scheduled(fixedDelayString = "${alerts.rule-index.version-check-ms:5000}")
+    public void checkVersion() {
+        if (!versioned) {
+            return;
+        }
+        Long current = readVersion();
+        if (current != null && current != snapshot.version()) {
+            log.info("Versión de reglas {} distinta de la local {}: reconstruyendo índice.",
+                    current, snapshot.version());
+            rebuild();
+        }
+    }
+
+    /**
+     * Carga las reglas activas (con su plantilla, en una sola consulta) y publica la nueva
+     * instantánea. La versión se lee antes que las reglas: si algo cambia entre ambas
+     * lecturas, la siguiente comprobación vuelve a reconstruir.
+     */
+    public synchronized void rebuild() {
+        Long version = readVersion();
+        List<AlertRule> rules = alertRuleRepository.findActiveWithTemplate();
+
+        Map<EventTrigger, List<CompiledRule>> grouped = new EnumMap<>(EventTrigger.class);
+        for (AlertRule rule : rules) {
+            grouped.computeIfAbsent(rule.getTriggerEvent(), trigger -> new ArrayList<>()).add(compile(rule));
+        }
+
+        Map<EventTrigger, CompiledRule[]> index = new EnumMap<>(EventTrigger.class);
+        grouped.forEach((trigger, compiled) -> index.put(trigger, compiled.toArray(NO_RULES)));
+
+        snapshot = new Snapshot(version != null ? version : snapshot.version(), Collections.unmodifiableMap(index));
+        log.info("Índice de reglas v{} cargado: {} reglas activas en {} eventos.",
+                snapshot.version(), rules.size(), index.size());
+    }
+
+    private CompiledRule compile(AlertRule rule) {
+        return new CompiledRule(
+                rule.getId(),
+                rule.getName(),
+                rule.getTriggerEvent(),
+                rule.getChannel(),
+                rule.getPriority(),
+                rule.getMessageTemplate() != null ? rule.getMessageTemplate().getName() : null,
+                rule.getMessageTemplate() != null ? templateCache.get(rule.getMessageTemplate()) : null,
+                parseAudience(rule),
+                parseCondition(rule),
+                rule.getCoalesceWindowSeconds() != null ? rule.getCoalesceWindowSeconds() * 1000L : 0L);
+    }
+
+    private AudienceCriteria parseAudience(AlertRule rule) {
+        try {
+            return AudienceCriteria.parse(rule.getTargetAudience(), objectMapper);
+        } catch (IllegalArgumentException e) {
+            // Se valida al guardar; aquí solo llega si se editó la tabla a mano
+            log.error("Público objetivo inválido en la regla ID {}: {}", rule.getId(), e.getMessage());
+            return AudienceCriteria.INVALID;
+        }
+    }
+
+    private RuleCondition parseCondition(AlertRule rule) {
+        try {
+            return RuleCondition.parse(rule.getConditionExpression());
+        } catch (IllegalArgumentException e) {
+            // Se valida al guardar; aquí solo llega si se editó la tabla a mano
+            log.error("Condición inválida en la regla ID {}: {}", rule.getId(), e.getMessage());
+            return RuleCondition.NEVER;
+        }
+    }
+
+    private Long readVersion() {
+        try {
+            return jdbcTemplate.queryForObject("SELECT version FROM rule_index_version WHERE id = 1", Long.class);
+        } catch (DataAccessException e) {
+            log.debug("Versión del índice de reglas no disponible: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private record Snapshot(long version, Map<EventTrigger, CompiledRule[]> rules) {
+    }
+}
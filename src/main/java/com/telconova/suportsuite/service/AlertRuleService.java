@@ -5,11 +5,13 @@ import com.telconova.suportsuite.DTO.AlertRuleAuditDto;
 import com.telconova.suportsuite.DTO.AlertRuleDto;
 import com.telconova.suportsuite.DTO.CreateAlertRuleRequest;
 import com.telconova.suportsuite.entity.*;
+import com.telconova.suportsuite.exception.BadRequestException;
 import com.telconova.suportsuite.repository.AlertRuleAuditRepository;
 import com.telconova.suportsuite.repository.AlertRuleRepository;
 import com.telconova.suportsuite.repository.MessageTemplateRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +20,7 @@ import org.springframework.transaction.annotation.Propagation;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -29,6 +32,7 @@ public class AlertRuleService {
     private final AlertRuleAuditRepository auditRepository;
     private final MessageTemplateRepository templateRepository;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Crear nueva regla de notificación
@@ -53,9 +57,11 @@ public class AlertRuleService {
         rule.setDescription(request.getDescription());
         rule.setTriggerEvent(eventTrigger); // 🟢 Usar el enum convertido
         rule.setMessageTemplate(template);
-        rule.setTargetAudience(request.getTargetAudience());
+        rule.setTargetAudience(validateAudience(request.getTargetAudience()));
+        rule.setConditionExpression(normalizeCondition(request.getConditionExpression()));
         rule.setChannel(channel); // 🟢 Usar el enum convertido
         rule.setPriority(request.getPriority());
+        rule.setCoalesceWindowSeconds(request.getCoalesceWindowSeconds());
         rule.setIsActive(request.getIsActive());
         rule.setCreatedBy(username);
 
@@ -66,6 +72,9 @@ public class AlertRuleService {
 
         log.info("Regla de alerta ID {} creada exitosamente", saved.getId());
 
+        // El índice de reglas en memoria se reconstruye al confirmar
+        eventPublisher.publishEvent(new AlertRuleChangedEvent("regla " + saved.getId() + " creada"));
+
         return convertToDto(saved);
     }
 
@@ -96,9 +105,11 @@ public class AlertRuleService {
         rule.setDescription(request.getDescription());
         rule.setTriggerEvent(eventTrigger); // 🟢 Usar el enum convertido
         rule.setMessageTemplate(template);
-        rule.setTargetAudience(request.getTargetAudience());
+        rule.setTargetAudience(validateAudience(request.getTargetAudience()));
+        rule.setConditionExpression(normalizeCondition(request.getConditionExpression()));
         rule.setChannel(channel); // 🟢 Usar el enum convertido
         rule.setPriority(request.getPriority());
+        rule.setCoalesceWindowSeconds(request.getCoalesceWindowSeconds());
         rule.setIsActive(request.getIsActive());
         rule.setUpdatedBy(username);
 
@@ -111,6 +122,8 @@ public class AlertRuleService {
 
         log.info("Regla de alerta ID {} actualizada exitosamente", id);
 
+        eventPublisher.publishEvent(new AlertRuleChangedEvent("regla " + id + " actualizada"));
+
         return convertToDto(updated);
     }
 
@@ -132,6 +145,8 @@ public class AlertRuleService {
         alertRuleRepository.delete(rule);
 
         log.info("Regla de alerta ID {} eliminada exitosamente", id);
+
+        eventPublisher.publishEvent(new AlertRuleChangedEvent("regla " + id + " eliminada"));
     }
 
     /**
@@ -155,6 +170,8 @@ public class AlertRuleService {
 
         log.info("Regla de alerta ID {} activada", id);
 
+        eventPublisher.publishEvent(new AlertRuleChangedEvent("regla " + id + " activada"));
+
         return convertToDto(updated);
     }
 
@@ -179,6 +196,8 @@ public class AlertRuleService {
 
         log.info("Regla de alerta ID {} desactivada", id);
 
+        eventPublisher.publishEvent(new AlertRuleChangedEvent("regla " + id + " desactivada"));
+
         return convertToDto(updated);
     }
 
@@ -229,6 +248,33 @@ public class AlertRuleService {
         return dto;
     }
 
+    /**
+     * Valida el público objetivo al guardar (BadRequestException si no es un objeto de criterios
+     * o una lista de usuarios), así una regla nunca queda sin destinatarios en silencio
+     */
+    private String validateAudience(String targetAudience) {
+        try {
+            if (AudienceCriteria.parse(targetAudience, objectMapper).isEmpty()) {
+                throw new BadRequestException("El público objetivo no selecciona ningún destinatario");
+            }
+            return targetAudience;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    /**
+     * Valida la condición al guardar (BadRequestException con la posición del error si no
+     * es válida), así el índice de reglas no encuentra expresiones que no pueda interpretar
+     */
+    private String normalizeCondition(String expression) {
+        try {
+            return RuleCondition.parse(expression).expression();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
     /**
      * Registrar en auditoría
      */
@@ -256,8 +302,10 @@ public class AlertRuleService {
         state.put("eventTrigger", rule.getTriggerEvent());
         state.put("templateId", rule.getMessageTemplate().getId());
         state.put("targetAudience", rule.getTargetAudience());
+        state.put("conditionExpression", rule.getConditionExpression());
         state.put("channel", rule.getChannel());
         state.put("priority", rule.getPriority());
+        state.put("coalesceWindowSeconds", rule.getCoalesceWindowSeconds());
         state.put("isActive", rule.getIsActive());
         return state;
     }
@@ -274,7 +322,7 @@ public class AlertRuleService {
                 Object oldValue = oldValues.get(key);
                 Object newValue = newValues.get(key);
 
-                if (!oldValue.equals(newValue)) {
+                if (!Objects.equals(oldValue, newValue)) {
                     changes.put(key, oldValue + " → " + newValue);
                 }
             }
@@ -298,9 +346,11 @@ public class AlertRuleService {
         dto.setTemplateId(rule.getMessageTemplate().getId());
         dto.setTemplateName(rule.getMessageTemplate().getName());
         dto.setTargetAudience(rule.getTargetAudience());
+        dto.setConditionExpression(rule.getConditionExpression());
         dto.setChannel(rule.getChannel());
         dto.setIsActive(rule.getIsActive());
         dto.setPriority(rule.getPriority());
+        dto.setCoalesceWindowSeconds(rule.getCoalesceWindowSeconds());
         dto.setCreatedBy(rule.getCreatedBy());
         dto.setCreatedAt(rule.getCreatedAt());
         dto.setUpdatedBy(rule.getUpdatedBy());
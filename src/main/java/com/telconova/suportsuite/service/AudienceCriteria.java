@@ -0,0 +1,106 @@
+package com.telconova.suportsuite.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Público objetivo de una regla, ya interpretado desde el JSON de targetAudience.
+ * Ejemplos de criterios:
+ *   {"role": "ADMIN"}, {"roles": ["ADMIN", "SOPORTE"], "status": "active"},
+ *   {"users": ["ana", "luis"]}, {"all": true, "status": "active"},
+ *   o una lista directa de usuarios: ["ana", "luis"] (igual que {"users": [...]}).
+ * Los candidatos son la unión de los roles y los usuarios listados (o todos con "all");
+ * "status": "active" excluye además las cuentas bloqueadas.
+ * Se valida al guardar la regla; si aun así el JSON guardado no es válido, la regla queda sin
+ * público (valid = false) y no genera notificaciones.
+ */
+public record AudienceCriteria(boolean valid,
+                               boolean everyone,
+                               Set<String> roles,
+                               Set<String> usernames,
+                               boolean activeOnly) {
+
+    public static final AudienceCriteria INVALID = new AudienceCriteria(false, false, Set.of(), Set.of(), false);
+
+    /**
+     * Interpreta el JSON de targetAudience: un objeto de criterios o una lista de usuarios.
+     * Lanza IllegalArgumentException si no es JSON o no tiene una de esas formas.
+     */
+    public static AudienceCriteria parse(String json, ObjectMapper objectMapper) {
+        if (json == null || json.isBlank()) {
+            throw new IllegalArgumentException("El público objetivo es obligatorio");
+        }
+        Object parsed;
+        try {
+            parsed = objectMapper.readValue(json, Object.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("El público objetivo no es un JSON válido: " + e.getOriginalMessage());
+        }
+        if (parsed instanceof List<?> users) {
+            return of(Map.of("users", users));
+        }
+        if (parsed instanceof Map<?, ?> criteria) {
+            Map<String, Object> byKey = new HashMap<>();
+            criteria.forEach((key, value) -> byKey.put(String.valueOf(key), value));
+            return of(byKey);
+        }
+        throw new IllegalArgumentException("El público objetivo debe ser un objeto de criterios o una lista de usuarios");
+    }
+
+    /**
+     * Interpreta los criterios una sola vez, al cargar la regla en el índice.
+     * Lanza IllegalArgumentException si un valor no tiene el tipo esperado.
+     */
+    public static AudienceCriteria of(Map<String, Object> criteria) {
+        Set<String> roles = new LinkedHashSet<>();
+        Set<String> usernames = new LinkedHashSet<>();
+        boolean everyone = false;
+        boolean activeOnly = false;
+
+        for (Map.Entry<String, Object> entry : criteria.entrySet()) {
+            Object value = entry.getValue();
+            switch (entry.getKey()) {
+                case "role", "roles" -> addAll(roles, value, true);
+                case "user", "users", "usernames" -> addAll(usernames, value, false);
+                case "all" -> everyone = Boolean.TRUE.equals(value);
+                case "status" -> activeOnly = "active".equalsIgnoreCase(String.valueOf(value));
+                default -> throw new IllegalArgumentException("Criterio de público desconocido: " + entry.getKey());
+            }
+        }
+        return new AudienceCriteria(true, everyone, Set.copyOf(roles), Set.copyOf(usernames), activeOnly);
+    }
+
+    public boolean isEmpty() {
+        return !everyone && roles.isEmpty() && usernames.isEmpty();
+    }
+
+    private static void addAll(Set<String> target, Object value, boolean upperCase) {
+        if (value instanceof String single) {
+            add(target, single, upperCase);
+        } else if (value instanceof Collection<?> values) {
+            for (Object item : values) {
+                if (!(item instanceof String text)) {
+                    throw new IllegalArgumentException("Valor de público no válido: " + item);
+                }
+                add(target, text, upperCase);
+            }
+        } else if (value != null) {
+            throw new IllegalArgumentException("Valor de público no válido: " + value);
+        }
+    }
+
+    private static void add(Set<String> target, String value, boolean upperCase) {
+        String trimmed = value.trim();
+        if (!trimmed.isEmpty()) {
+            target.add(upperCase ? trimmed.toUpperCase(Locale.ROOT) : trimmed);
+        }
+    }
+}
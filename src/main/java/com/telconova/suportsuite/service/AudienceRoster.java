@@ -0,0 +1,253 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.DTO.RosterUser;
+import com.telconova.suportsuite.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Roster en memoria de tn_user para resolver el público objetivo de las reglas.
+ * Indexa los usuarios por id, por username y por rol, así resolver {"role": "ADMIN"} recorre
+ * solo los miembros de ese rol y no la tabla completa. Los destinatarios se entregan en
+ * bloques de tamaño fijo en lugar de una única lista.
+ * Se mantiene al día de forma incremental: los usuarios nuevos se cargan por id creciente,
+ * los bloqueos/desbloqueos llegan por UserChangedEvent, y una resincronización completa
+ * periódica recoge ediciones y bajas hechas por fuera de la aplicación.
+ */
+@Slf4j
+@Component
+public class AudienceRoster {
+
+    private final UserRepository userRepository;
+
+    @Value("${alerts.audience.roster-page-size:1000}")
+    private int pageSize;
+
+    private volatile Index index = new Index();
+
+    public AudienceRoster(UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        Gauge.builder("alerts.audience.roster.size", this, roster -> roster.index.byId.size())
+                .description("Usuarios cargados en el roster de público objetivo")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        resync();
+    }
+
+    /**
+     * Carga solo los usuarios creados desde la última carga (id mayor al último visto).
+     */
+    @Scheduled(fixedDelayString = "${alerts.audience.roster-refresh-ms:30000}",
+               initialDelayString = "${alerts.audience.roster-refresh-ms:30000}")
+    public synchronized void refreshNew() {
+        int loaded = load(index);
+        if (loaded > 0) {
+            log.info("Roster de público: {} usuarios nuevos cargados.", loaded);
+        }
+    }
+
+    /**
+     * Reconstruye el roster completo y lo publica de una vez; recoge cambios de roles y bajas.
+     */
+    @Scheduled(fixedDelayString = "${alerts.audience.roster-resync-ms:600000}",
+               initialDelayString = "${alerts.audience.roster-resync-ms:600000}")
+    public synchronized void resync() {
+        Index fresh = new Index();
+        int loaded = load(fresh);
+        index = fresh;
+        log.info("Roster de público sincronizado: {} usuarios, {} roles.", loaded, fresh.idsByRole.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserChanged(UserChangedEvent event) {
+        index.put(toMember(event.user()));
+    }
+
+    /**
+     * Entrega los usernames que cumplen el criterio en bloques de hasta chunkSize, sin consultar
+     * la BD. Un usuario que coincide por varios roles o por rol y por nombre se entrega una vez.
+     * Devuelve el total de destinatarios entregados.
+     */
+    public long forEachChunk(AudienceCriteria criteria, int chunkSize, Consumer<List<String>> consumer) {
+        if (!criteria.valid() || criteria.isEmpty()) {
+            return 0;
+        }
+        Index current = index;
+        Emitter emitter = new Emitter(criteria.activeOnly(), chunkSize, consumer);
+
+        if (criteria.everyone()) {
+            current.byId.values().forEach(emitter::emit);
+            return emitter.finish();
+        }
+
+        List<String> roles = List.copyOf(criteria.roles());
+        for (int i = 0; i < roles.size(); i++) {
+            Set<Long> ids = current.idsByRole.get(roles.get(i));
+            if (ids == null) {
+                continue;
+            }
+            List<String> earlierRoles = roles.subList(0, i);
+            for (Long id : ids) {
+                Member member = current.byId.get(id);
+                if (member != null && !member.hasAnyRole(earlierRoles)) {
+                    emitter.emit(member);
+                }
+            }
+        }
+
+        for (String username : criteria.usernames()) {
+            Long id = current.idByUsername.get(username);
+            Member member = id != null ? current.byId.get(id) : null;
+            if (member == null) {
+                log.debug("Usuario '{}' del público objetivo no existe en tn_user.", username);
+            } else if (!member.hasAnyRole(roles)) {
+                emitter.emit(member);
+            }
+        }
+        return emitter.finish();
+    }
+
+    public int size() {
+        return index.byId.size();
+    }
+
+    private int load(Index target) {
+        int loaded = 0;
+        PageRequest page = PageRequest.of(0, pageSize);
+        List<RosterUser> rows = userRepository.findRosterPageAfter(target.lastLoadedId, page);
+        while (!rows.isEmpty()) {
+            for (RosterUser row : rows) {
+                target.put(toMember(row));
+            }
+            // Solo la carga por páginas avanza el cursor; un evento no debe saltarse usuarios nuevos
+            target.lastLoadedId = rows.get(rows.size() - 1).id();
+            loaded += rows.size();
+            if (rows.size() < pageSize) {
+                break;
+            }
+            rows = userRepository.findRosterPageAfter(target.lastLoadedId, page);
+        }
+        return loaded;
+    }
+
+    private static Member toMember(RosterUser user) {
+        Set<String> roles = new LinkedHashSet<>();
+        if (user.roles() != null) {
+            for (String role : user.roles().split(",")) {
+                String trimmed = role.trim();
+                if (!trimmed.isEmpty()) {
+                    // Pocos roles distintos compartidos por muchos usuarios
+                    roles.add(trimmed.toUpperCase(Locale.ROOT).intern());
+                }
+            }
+        }
+        return new Member(user.id(), user.username(), Set.copyOf(roles), user.locked(), user.lockoutEndTime());
+    }
+
+    private record Member(Long id, String username, Set<String> roles, boolean locked, LocalDateTime lockoutEndTime) {
+
+        boolean active(LocalDateTime now) {
+            return !locked || (lockoutEndTime != null && lockoutEndTime.isBefore(now));
+        }
+
+        boolean hasAnyRole(List<String> candidates) {
+            for (String role : candidates) {
+                if (roles.contains(role)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Índices del roster. Las lecturas no bloquean; las escrituras están serializadas por
+     * los métodos synchronized del roster.
+     */
+    private static final class Index {
+
+        private final Map<Long, Member> byId = new ConcurrentHashMap<>();
+        private final Map<String, Long> idByUsername = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> idsByRole = new ConcurrentHashMap<>();
+        private long lastLoadedId;
+
+        void put(Member member) {
+            Member previous = byId.put(member.id(), member);
+            if (previous != null) {
+                for (String role : previous.roles()) {
+                    if (!member.roles().contains(role)) {
+                        idsByRole.get(role).remove(member.id());
+                    }
+                }
+                if (!previous.username().equals(member.username())) {
+                    idByUsername.remove(previous.username());
+                }
+            }
+            idByUsername.put(member.username(), member.id());
+            for (String role : member.roles()) {
+                idsByRole.computeIfAbsent(role, key -> ConcurrentHashMap.newKeySet()).add(member.id());
+            }
+        }
+    }
+
+    private static final class Emitter {
+
+        private final boolean activeOnly;
+        private final int chunkSize;
+        private final Consumer<List<String>> consumer;
+        private final LocalDateTime now = LocalDateTime.now();
+        private List<String> chunk;
+        private long delivered;
+
+        Emitter(boolean activeOnly, int chunkSize, Consumer<List<String>> consumer) {
+            this.activeOnly = activeOnly;
+            this.chunkSize = chunkSize;
+            this.consumer = consumer;
+            this.chunk = new ArrayList<>(chunkSize);
+        }
+
+        void emit(Member member) {
+            if (activeOnly && !member.active(now)) {
+                return;
+            }
+            chunk.add(member.username());
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        long finish() {
+            if (!chunk.isEmpty()) {
+                flush();
+            }
+            return delivered;
+        }
+
+        private void flush() {
+            delivered += chunk.size();
+            consumer.accept(chunk);
+            chunk = new ArrayList<>(chunkSize);
+        }
+    }
+}
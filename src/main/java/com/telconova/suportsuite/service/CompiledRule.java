@@ -0,0 +1,24 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.EventTrigger;
+import com.telconova.suportsuite.entity.NotificationChannel;
+
+/**
+ * Regla de alerta activa lista para evaluar: inmutable, sin entidades JPA ni cargas perezosas,
+ * con el público objetivo y la condición ya interpretados y la plantilla resuelta y compilada.
+ */
+public record CompiledRule(Long id,
+                           String name,
+                           EventTrigger triggerEvent,
+                           NotificationChannel channel,
+                           Integer priority,
+                           String subject,
+                           CompiledTemplate template,
+                           AudienceCriteria audience,
+                           RuleCondition condition,
+                           long coalesceWindowMs) {
+
+    public boolean coalesces() {
+        return coalesceWindowMs > 0;
+    }
+}
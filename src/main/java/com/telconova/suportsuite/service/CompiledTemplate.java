@@ -0,0 +1,89 @@
+package com.telconova.suportsuite.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plantilla ya interpretada en segmentos: literal, variable, literal, ..., literal.
+ * Se interpreta una sola vez y se renderiza en una pasada sobre un StringBuilder con el
+ * tamaño estimado, en lugar de un String.replace por cada variable del evento.
+ * Las variables que el evento no trae se dejan tal cual ({variable}), como antes.
+ */
+public final class CompiledTemplate {
+
+    public static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{([_a-zA-Z][_a-zA-Z0-9]*)\\}");
+
+    // Estimación de caracteres por valor, para dimensionar el buffer
+    private static final int ESTIMATED_VALUE_LENGTH = 16;
+
+    // literals.length == variables.length + 1
+    private final String[] literals;
+    private final String[] variables;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, String[] variables, int literalLength) {
+        this.literals = literals;
+        this.variables = variables;
+        this.literalLength = literalLength;
+    }
+
+    public static CompiledTemplate compile(String content) {
+        String source = content != null ? content : "";
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int literalLength = 0;
+        int last = 0;
+
+        Matcher matcher = VARIABLE_PATTERN.matcher(source);
+        while (matcher.find()) {
+            String literal = source.substring(last, matcher.start());
+            literals.add(literal);
+            literalLength += literal.length();
+            variables.add(matcher.group(1));
+            last = matcher.end();
+        }
+        String tail = source.substring(last);
+        literals.add(tail);
+        literalLength += tail.length();
+
+        return new CompiledTemplate(literals.toArray(String[]::new), variables.toArray(String[]::new), literalLength);
+    }
+
+    public String render(Map<String, ?> data) {
+        StringBuilder builder = new StringBuilder(literalLength + variables.length * ESTIMATED_VALUE_LENGTH);
+        for (int i = 0; i < variables.length; i++) {
+            builder.append(literals[i]);
+            Object value = data.get(variables[i]);
+            if (value != null) {
+                builder.append(value);
+            } else if (!data.containsKey(variables[i])) {
+                builder.append('{').append(variables[i]).append('}');
+            }
+        }
+        return builder.append(literals[variables.length]).toString();
+    }
+
+    /**
+     * Variables de la plantilla, en orden de aparición (con repeticiones).
+     */
+    public List<String> variables() {
+        return List.of(variables);
+    }
+
+    /**
+     * Variables que la plantilla usa y el evento no trae; se comprueban contra la lista
+     * calculada al compilar, sin recorrer el texto.
+     */
+    public List<String> missingVariables(Map<String, ?> data) {
+        List<String> missing = new ArrayList<>();
+        for (String variable : variables) {
+            if (!data.containsKey(variable) && !missing.contains(variable)) {
+                missing.add(variable);
+            }
+        }
+        return missing;
+    }
+}
@@ -28,6 +28,14 @@ public class CustomUserDetailsService implements UserDetailsService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
 
+        return toUserDetails(user);
+    }
+
+    /**
+     * Construye el UserDetails de un usuario ya cargado (lo usa también UserSecurityCache,
+     * que consulta tn_user una sola vez para el bloqueo y los detalles).
+     */
+    public UserDetails toUserDetails(User user) {
         // 2. Mapear el rol (String simple) a una lista de GrantedAuthority
         Collection<? extends GrantedAuthority> authorities = mapRoleToAuthority(user.getRoles());
 
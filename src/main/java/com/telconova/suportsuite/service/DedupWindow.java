@@ -0,0 +1,90 @@
+package com.telconova.suportsuite.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Conjunto de claves vistas en la última ventana de tiempo, repartido en cubetas por intervalo.
+ * Cada cubeta guarda las claves de su intervalo y se reemplaza entera cuando el reloj pasa a un
+ * intervalo nuevo, así las claves vencen sin recorrerlas una a una. Como máximo guarda
+ * maxKeys claves; por encima deja de registrar (la comprobación en la BD sigue aplicando).
+ */
+public final class DedupWindow {
+
+    private final long bucketMs;
+    private final int maxKeys;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    public DedupWindow(long windowMs, int bucketCount, int maxKeys) {
+        this.bucketMs = Math.max(1, windowMs / bucketCount);
+        this.maxKeys = maxKeys;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+    }
+
+    /**
+     * Registra la clave y devuelve true si no se había visto dentro de la ventana.
+     */
+    public boolean add(String key, long nowMs) {
+        long epoch = nowMs / bucketMs;
+        int count = buckets.length();
+        int size = 0;
+
+        for (int i = 0; i < count; i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && epoch - bucket.epoch() < count) {
+                if (bucket.keys().contains(key)) {
+                    return false;
+                }
+                size += bucket.keys().size();
+            }
+        }
+        if (size >= maxKeys) {
+            return true;
+        }
+        // Entre dos llamadas concurrentes con la misma clave, solo una la agrega a la cubeta actual
+        return current(epoch).keys().add(key);
+    }
+
+    /**
+     * Olvida la clave (el evento no llegó a procesarse), para que un reintento no se descarte.
+     */
+    public void remove(String key) {
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null) {
+                bucket.keys().remove(key);
+            }
+        }
+    }
+
+    public int size(long nowMs) {
+        long epoch = nowMs / bucketMs;
+        int size = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && epoch - bucket.epoch() < buckets.length()) {
+                size += bucket.keys().size();
+            }
+        }
+        return size;
+    }
+
+    private Bucket current(long epoch) {
+        int index = (int) (epoch % buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(index);
+            // Un hilo con el reloj apenas atrasado no debe pisar la cubeta ya renovada
+            if (bucket != null && bucket.epoch() >= epoch) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(epoch, ConcurrentHashMap.newKeySet());
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private record Bucket(long epoch, Set<String> keys) {
+    }
+}
@@ -0,0 +1,201 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.EventTrigger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Supresión de eventos duplicados dentro de una ventana de tiempo (alerts.dedup.*).
+ * La clave de un evento es la de idempotencia que envía el productor o, si no la envía, la
+ * que arman los campos configurados para su EventTrigger, p. ej.
+ * alerts.dedup.key-fields.SLA_WARNING=ticket_number. Sin clave el evento no se deduplica.
+ *
+ * Dos etapas: al encolar, un conjunto en memoria por cubetas de tiempo (DedupWindow) descarta
+ * los duplicados de este nodo sin tocar la BD; al evaluar, un INSERT en processed_events con la
+ * clave única reclama el evento para todo el clúster (si dos nodos compiten, uno recibe la
+ * violación de la clave). La fila se puede volver a reclamar cuando su processed_at queda
+ * fuera de la ventana. Si el evento se descarta o su evaluación falla, release() libera la clave
+ * en ambas etapas para que el reintento del productor no se pierda como duplicado.
+ */
+@Slf4j
+@Component
+public class EventDeduplicator {
+
+    private static final String PREFIX = "alerts.dedup.";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // Renueva una clave vencida; si no hay fila vencida se intenta insertarla
+    private static final String RECLAIM_SQL =
+            "UPDATE processed_events SET processed_at = ? WHERE event_key = ? AND processed_at < ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO processed_events (event_key, processed_at) VALUES (?, ?)";
+    private static final String RELEASE_SQL =
+            "DELETE FROM processed_events WHERE event_key = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long windowMs;
+    private final Map<EventTrigger, String[]> keyFields = new EnumMap<>(EventTrigger.class);
+    private final DedupWindow window;
+    private final Counter memoryDuplicates;
+    private final Counter databaseDuplicates;
+
+    // Sin la tabla processed_events solo se deduplica dentro de cada nodo
+    private volatile boolean persistent;
+
+    public EventDeduplicator(Environment environment, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = environment.getProperty(PREFIX + "enabled", Boolean.class, true);
+        this.windowMs = environment.getProperty(PREFIX + "window-ms", Long.class, 600_000L);
+        this.window = new DedupWindow(windowMs,
+                environment.getProperty(PREFIX + "buckets", Integer.class, 10),
+                environment.getProperty(PREFIX + "max-keys", Integer.class, 100_000));
+
+        for (EventTrigger trigger : EventTrigger.values()) {
+            String[] fields = environment.getProperty(PREFIX + "key-fields." + trigger.name(), String[].class);
+            if (fields != null && fields.length > 0) {
+                keyFields.put(trigger, fields);
+            }
+        }
+
+        this.memoryDuplicates = Counter.builder("alerts.events.duplicates")
+                .description("Eventos duplicados suprimidos")
+                .tag("stage", "memory")
+                .register(meterRegistry);
+        this.databaseDuplicates = Counter.builder("alerts.events.duplicates")
+                .description("Eventos duplicados suprimidos")
+                .tag("stage", "database")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM processed_events WHERE 1 = 0", Long.class);
+            persistent = true;
+        } catch (DataAccessException e) {
+            log.warn("Tabla processed_events no disponible: los eventos solo se deduplicarán dentro de cada nodo.");
+        }
+    }
+
+    /**
+     * Clave de deduplicación del evento, o null si no aplica.
+     */
+    public String keyFor(EventTrigger eventType, Map<String, Object> eventData, String idempotencyKey) {
+        if (!enabled) {
+            return null;
+        }
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            return normalize(eventType.name() + ":" + idempotencyKey);
+        }
+        String[] fields = keyFields.get(eventType);
+        if (fields == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(eventType.name());
+        for (String field : fields) {
+            Object value = eventData.get(field.trim());
+            if (value == null) {
+                // Sin todos los campos no hay forma segura de reconocer un duplicado
+                return null;
+            }
+            key.append(':').append(value);
+        }
+        return normalize(key.toString());
+    }
+
+    /**
+     * Primera etapa, en memoria y sin E/S: false si la clave ya se vio en la ventana.
+     */
+    public boolean firstSeen(String key) {
+        if (window.add(key, System.currentTimeMillis())) {
+            return true;
+        }
+        memoryDuplicates.increment();
+        return false;
+    }
+
+    /**
+     * Segunda etapa, en la BD: reclama la clave para todo el clúster. Si la BD falla se deja
+     * pasar el evento, con un duplicado posible antes que una alerta perdida.
+     */
+    public boolean claim(String key) {
+        if (!persistent) {
+            return true;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp expired = Timestamp.valueOf(LocalDateTime.now().minusNanos(windowMs * 1_000_000));
+        try {
+            // Fuera de transacción: la violación de la clave única no afecta a nada más
+            if (jdbcTemplate.update(RECLAIM_SQL, now, key, expired) > 0) {
+                return true;
+            }
+            jdbcTemplate.update(INSERT_SQL, key, now);
+            return true;
+        } catch (DuplicateKeyException e) {
+            databaseDuplicates.increment();
+            return false;
+        } catch (DataAccessException e) {
+            log.error("No se pudo reclamar el evento {} en processed_events: {}", key, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Libera la clave de un evento que no se llegó a procesar: de la ventana en memoria y, si ya
+     * se había reclamado (claimed), también de processed_events.
+     */
+    public void release(String key, boolean claimed) {
+        window.remove(key);
+        if (!claimed || !persistent) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(RELEASE_SQL, key);
+        } catch (DataAccessException e) {
+            log.error("No se pudo liberar el evento {} en processed_events: {}", key, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${alerts.dedup.window-ms:600000}")
+    public void purgeExpired() {
+        if (!persistent) {
+            return;
+        }
+        int purged = jdbcTemplate.update("DELETE FROM processed_events WHERE processed_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusNanos(windowMs * 1_000_000)));
+        if (purged > 0) {
+            log.debug("Purgadas {} claves de eventos vencidas.", purged);
+        }
+    }
+
+    private static String normalize(String key) {
+        if (key.length() <= MAX_KEY_LENGTH) {
+            return key;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.telconova.suportsuite.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rueda de tiempo jerárquica para disparar elementos en una fecha límite.
+ * Programar y disparar cuesta O(1) por elemento y no hay sondeo: un elemento que vence
+ * dentro de horas solo se toca cuando baja de nivel y cuando vence.
+ *
+ * El nivel 0 avanza en pasos de tickMs; cada nivel superior cubre wheelSize pasos del
+ * nivel inferior. Las fechas más allá del último nivel dan la vuelta y se vuelven a ubicar
+ * cuando su casilla baja de nivel. Los elementos se entregan como mucho un tick tarde,
+ * nunca antes de su fecha límite.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    // tickMs de cada nivel: tickMs, tickMs * wheelSize, tickMs * wheelSize^2, ...
+    private final long[] levelTickMs;
+    private final List<List<Entry<T>>> buckets = new ArrayList<>();
+    private final List<T> overdue = new ArrayList<>();
+
+    // Inicio del tick actual del nivel 0 (ms epoch, alineado a tickMs)
+    private long currentMs;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, int levels, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levelTickMs = new long[levels];
+        long levelTick = tickMs;
+        for (int level = 0; level < levels; level++) {
+            levelTickMs[level] = levelTick;
+            levelTick *= wheelSize;
+            for (int slot = 0; slot < wheelSize; slot++) {
+                buckets.add(new ArrayList<>());
+            }
+        }
+        this.currentMs = startMs - Math.floorMod(startMs, tickMs);
+    }
+
+    public synchronized void schedule(T item, long deadlineMs) {
+        place(new Entry<>(item, deadlineMs));
+        size++;
+    }
+
+    /**
+     * Avanza la rueda hasta nowMs y devuelve los elementos cuya fecha límite ya pasó.
+     */
+    public synchronized List<T> advanceTo(long nowMs) {
+        List<T> due = new ArrayList<>(overdue);
+        overdue.clear();
+
+        while (currentMs + tickMs <= nowMs) {
+            // El tick actual terminó: todo lo de su casilla ya venció
+            List<Entry<T>> fired = takeBucket(0, currentMs);
+            for (Entry<T> entry : fired) {
+                due.add(entry.item());
+            }
+            currentMs += tickMs;
+
+            // Al cruzar el límite de un nivel superior, su casilla baja a los niveles inferiores
+            for (int level = levelTickMs.length - 1; level > 0; level--) {
+                if (Math.floorMod(currentMs, levelTickMs[level]) == 0) {
+                    for (Entry<T> entry : takeBucket(level, currentMs)) {
+                        place(entry);
+                    }
+                }
+            }
+        }
+
+        size -= due.size();
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        if (entry.deadlineMs() < currentMs) {
+            overdue.add(entry.item());
+            return;
+        }
+
+        int top = levelTickMs.length - 1;
+        for (int level = 0; level <= top; level++) {
+            long levelTick = levelTickMs[level];
+            long levelStart = currentMs - Math.floorMod(currentMs, levelTick);
+            long entryStart = entry.deadlineMs() - Math.floorMod(entry.deadlineMs(), levelTick);
+
+            // Los niveles superiores solo aceptan casillas futuras: la actual ya bajó de nivel
+            boolean fits = level == 0 || entryStart > levelStart;
+            boolean inRange = entry.deadlineMs() < levelStart + levelTick * wheelSize;
+
+            if (fits && (inRange || level == top)) {
+                bucket(level, entry.deadlineMs()).add(entry);
+                return;
+            }
+        }
+    }
+
+    private List<Entry<T>> takeBucket(int level, long timeMs) {
+        int index = bucketIndex(level, timeMs);
+        List<Entry<T>> taken = buckets.get(index);
+        buckets.set(index, new ArrayList<>());
+        return taken;
+    }
+
+    private List<Entry<T>> bucket(int level, long timeMs) {
+        return buckets.get(bucketIndex(level, timeMs));
+    }
+
+    private int bucketIndex(int level, long timeMs) {
+        return level * wheelSize + (int) Math.floorMod(Math.floorDiv(timeMs, levelTickMs[level]), (long) wheelSize);
+    }
+
+    private record Entry<T>(T item, long deadlineMs) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.MessageTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plantillas compiladas por id y versión. Varias reglas que comparten plantilla reutilizan
+ * la misma instancia, y al editarla (nueva versión) la compilación anterior se descarta.
+ */
+@Component
+public class MessageTemplateCache {
+
+    private final Map<Long, Entry> compiled = new ConcurrentHashMap<>();
+
+    public CompiledTemplate get(MessageTemplate template) {
+        long version = template.getVersion() != null ? template.getVersion() : 0L;
+        Entry entry = compiled.compute(template.getId(), (id, current) ->
+                current != null && current.version() == version
+                        ? current
+                        : new Entry(version, CompiledTemplate.compile(template.getContent())));
+        return entry.template();
+    }
+
+    public void evict(Long templateId) {
+        compiled.remove(templateId);
+    }
+
+    private record Entry(long version, CompiledTemplate template) {
+    }
+}
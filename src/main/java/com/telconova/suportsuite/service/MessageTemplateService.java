@@ -4,20 +4,25 @@ import com.telconova.suportsuite.DTO.CreateTemplateRequest;
 import com.telconova.suportsuite.DTO.MessageTemplateDto;
 import com.telconova.suportsuite.entity.MessageTemplate;
 import com.telconova.suportsuite.repository.MessageTemplateRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+@Slf4j
 @Service
 public class MessageTemplateService {
 
     @Autowired
     private MessageTemplateRepository messageTemplateRepository;
 
-    private static final String VALID_VARIABLE_REGEX = "\\{[_a-zA-Z]+\\}";
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MessageTemplateCache templateCache;
 
     public MessageTemplateDto createTemplate(CreateTemplateRequest request) {
         // Validación de variables dinámicas según el Criterio de Aceptación de HU-01
@@ -47,6 +52,8 @@ public class MessageTemplateService {
             template.setName(dto.getName());
             template.setContent(dto.getContent());
             MessageTemplate updatedTemplate = messageTemplateRepository.save(template);
+            // Las reglas que usan la plantilla la tienen copiada en el índice en memoria
+            eventPublisher.publishEvent(new AlertRuleChangedEvent("plantilla " + id + " actualizada"));
             return convertToDto(updatedTemplate);
         }).orElseThrow(() -> new RuntimeException("Plantilla no encontrada con ID: " + id));
     }
@@ -54,19 +61,19 @@ public class MessageTemplateService {
     public void deleteTemplate(Long id) {
         // Lógica para el Criterio de Aceptación de HU-02: eliminar una plantilla
         messageTemplateRepository.deleteById(id);
+        templateCache.evict(id);
+        eventPublisher.publishEvent(new AlertRuleChangedEvent("plantilla " + id + " eliminada"));
     }
 
     private void validateVariables(String content) {
-        Pattern pattern = Pattern.compile(VALID_VARIABLE_REGEX);
-        Matcher matcher = pattern.matcher(content);
+        // Se compila una vez para validar: la misma interpretación que luego usa el índice
+        // de reglas, con el patrón de variables precompilado
+        CompiledTemplate compiled = CompiledTemplate.compile(content);
 
-        while (matcher.find()) {
-            String variable = matcher.group();
-            // Criterio de Aceptación de HU-01: validar el formato de las variables.
-            // Aquí, por simplicidad, solo se valida el formato {variable_valida}.
-            // Se puede extender con una lista de variables predefinidas si es necesario.
-            System.out.println("Variable dinámica encontrada y validada: " + variable);
-        }
+        // Criterio de Aceptación de HU-01: validar el formato de las variables.
+        // Aquí, por simplicidad, solo se valida el formato {variable_valida}.
+        // Se puede extender con una lista de variables predefinidas si es necesario.
+        log.debug("Variables dinámicas encontradas y validadas: {}", compiled.variables());
     }
 
     private MessageTemplateDto convertToDto(MessageTemplate template) {
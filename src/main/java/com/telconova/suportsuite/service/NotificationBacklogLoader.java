@@ -0,0 +1,66 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.DTO.QueuedNotification;
+import com.telconova.suportsuite.entity.Notification.NotificationStatus;
+import com.telconova.suportsuite.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Recorre la cola persistida por páginas acotadas (paginación por clave), de modo que la
+ * memoria usada no depende del tamaño del atraso. Al arrancar precarga la cola de despacho
+ * con las notificaciones PENDIENTE hasta su capacidad; el resto lo toma el barrido de recuperación.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationBacklogLoader {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationDispatchQueue dispatchQueue;
+
+    @Value("${notifications.backlog.page-size:500}")
+    private int pageSize;
+
+    /**
+     * Entrega cada notificación del estado indicado, en orden de cola, hasta que el
+     * consumidor devuelva false. Devuelve cuántas se entregaron.
+     */
+    public long forEachQueued(NotificationStatus status, Predicate<QueuedNotification> consumer) {
+        PageRequest page = PageRequest.of(0, pageSize);
+        List<QueuedNotification> rows = notificationRepository.findQueuedFirstPage(status, page);
+        long delivered = 0;
+
+        while (!rows.isEmpty()) {
+            for (QueuedNotification row : rows) {
+                delivered++;
+                if (!consumer.test(row)) {
+                    return delivered;
+                }
+            }
+            if (rows.size() < pageSize) {
+                break;
+            }
+            QueuedNotification last = rows.get(rows.size() - 1);
+            rows = notificationRepository.findQueuedPageAfter(status,
+                    last.priority(), last.createdAt(), last.id(), page);
+        }
+        return delivered;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmDispatchQueue() {
+        long loaded = forEachQueued(NotificationStatus.PENDIENTE,
+                row -> dispatchQueue.offer(row.id(), row.priority(), row.createdAt())
+                        || dispatchQueue.size() < dispatchQueue.capacity());
+        log.info("Cola de despacho precargada: {} notificaciones pendientes revisadas.", loaded);
+    }
+}
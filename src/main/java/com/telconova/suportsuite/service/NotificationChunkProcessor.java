@@ -0,0 +1,246 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.Notification;
+import com.telconova.suportsuite.entity.Notification.NotificationStatus;
+import com.telconova.suportsuite.service.NotificationHistoryAppender.HistoryRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Procesamiento por lotes (modo chunk): el lote reclamado se envía completo y su resultado
+ * se escribe en una sola transacción, con un JDBC batch por resultado (enviadas, devueltas a
+ * la cola, fallidas con su contador y próximo intento, aplazadas por límite de tasa) y un
+ * único INSERT por lotes para el historial.
+ * Frente al modo por fila, pasa de varios round trips por notificación a unos pocos por lote.
+ * Cada UPDATE exige que la fila siga PROCESANDO con el lease con que se reclamó: si el lease
+ * venció y otro worker la volvió a reclamar, la fila no cambia y su resultado se descarta
+ * (sin transiciones, historial de resultado ni reintentos), igual que en el modo por fila.
+ */
+@Slf4j
+@Component
+public class NotificationChunkProcessor {
+
+    private static final String CLAIM_GUARD = " AND status = 'PROCESANDO' AND lease_expires_at = ?";
+
+    private static final String SENT_SQL =
+            "UPDATE notifications SET status = 'ENVIADO', sent_at = ?, lease_expires_at = NULL, " +
+            "next_attempt_at = NULL WHERE id = ?" + CLAIM_GUARD;
+
+    private static final String RELEASE_SQL =
+            "UPDATE notifications SET status = CASE WHEN reintentos_count > 0 THEN 'REINTENTANDO' " +
+            "ELSE 'PENDIENTE' END, lease_expires_at = NULL WHERE id = ?" + CLAIM_GUARD;
+
+    private static final String DEFER_SQL =
+            "UPDATE notifications SET status = ?, next_attempt_at = ?, lease_expires_at = NULL " +
+            "WHERE id = ?" + CLAIM_GUARD;
+
+    private static final String FAILURE_SQL =
+            "UPDATE notifications SET status = ?, reintentos_count = ?, error_menssage = ?, " +
+            "next_attempt_at = ?, lease_expires_at = NULL WHERE id = ?" + CLAIM_GUARD;
+
+    private final NotificationService notificationService;
+    private final NotificationDispatcher dispatcher;
+    private final NotificationDispatchQueue dispatchQueue;
+    private final NotificationRetryScheduler retryScheduler;
+    private final NotificationHistoryAppender historyAppender;
+    private final NotificationStatsTracker statsTracker;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public NotificationChunkProcessor(NotificationService notificationService,
+                                      NotificationDispatcher dispatcher,
+                                      NotificationDispatchQueue dispatchQueue,
+                                      NotificationRetryScheduler retryScheduler,
+                                      NotificationHistoryAppender historyAppender,
+                                      NotificationStatsTracker statsTracker,
+                                      JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager) {
+        this.notificationService = notificationService;
+        this.dispatcher = dispatcher;
+        this.dispatchQueue = dispatchQueue;
+        this.retryScheduler = retryScheduler;
+        this.historyAppender = historyAppender;
+        this.statsTracker = statsTracker;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void process(List<Notification> chunk) throws InterruptedException, ExecutionException {
+        List<CompletableFuture<SendOutcome>> sends = chunk.stream()
+                .map(dispatcher::sendOnly)
+                .toList();
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get();
+
+        List<SendOutcome> outcomes = sends.stream().map(CompletableFuture::join).toList();
+        complete(outcomes);
+    }
+
+    private void complete(List<SendOutcome> outcomes) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> sent = new ArrayList<>();
+        List<Notification> rejected = new ArrayList<>();
+        List<Notification> failed = new ArrayList<>();
+        List<Notification> deferred = new ArrayList<>();
+        Map<Long, HistoryRecord> results = new HashMap<>();
+        List<HistoryRecord> history = new ArrayList<>();
+
+        // El lease se conserva en la entidad hasta escribir: es la condición de cada UPDATE
+        for (SendOutcome outcome : outcomes) {
+            Notification notification = outcome.notification();
+            if (outcome.result() == SendOutcome.Result.ENVIADA || outcome.result() == SendOutcome.Result.FALLIDA) {
+                history.add(HistoryRecord.now(notification.getId(), NotificationStatus.PROCESANDO,
+                        "Iniciando envío de notificación", null));
+            }
+            switch (outcome.result()) {
+                case ENVIADA -> {
+                    notification.setStatus(NotificationStatus.ENVIADO);
+                    notification.setSentAt(now);
+                    sent.add(notification);
+                    results.put(notification.getId(), HistoryRecord.now(notification.getId(),
+                            NotificationStatus.ENVIADO, "Notificación enviada correctamente", null));
+                }
+                case FALLIDA -> {
+                    String description = notificationService.registerFailedAttempt(
+                            notification, outcome.errorMessage());
+                    failed.add(notification);
+                    results.put(notification.getId(), HistoryRecord.now(notification.getId(),
+                            notification.getStatus(), description, outcome.errorMessage()));
+                }
+                case RECHAZADA -> rejected.add(notification);
+                case APLAZADA -> {
+                    notification.setStatus(notificationService.hasPreviousAttempts(notification)
+                            ? NotificationStatus.REINTENTANDO
+                            : NotificationStatus.PENDIENTE);
+                    notification.setNextAttemptAt(outcome.retryAt());
+                    deferred.add(notification);
+                }
+            }
+        }
+
+        Applied applied = transactionTemplate.execute(status -> {
+            Applied written = new Applied(
+                    update(SENT_SQL, sent, (ps, notification) -> {
+                        ps.setTimestamp(1, Timestamp.valueOf(now));
+                        ps.setLong(2, notification.getId());
+                        ps.setTimestamp(3, lease(notification));
+                    }),
+                    update(RELEASE_SQL, rejected, (ps, notification) -> {
+                        ps.setLong(1, notification.getId());
+                        ps.setTimestamp(2, lease(notification));
+                    }),
+                    update(FAILURE_SQL, failed, (ps, notification) -> {
+                        ps.setString(1, notification.getStatus().name());
+                        ps.setInt(2, notification.getReintentosCount());
+                        ps.setString(3, notification.getErrorMenssage());
+                        ps.setTimestamp(4, notification.getNextAttemptAt() != null
+                                ? Timestamp.valueOf(notification.getNextAttemptAt())
+                                : null);
+                        ps.setLong(5, notification.getId());
+                        ps.setTimestamp(6, lease(notification));
+                    }),
+                    update(DEFER_SQL, deferred, (ps, notification) -> {
+                        ps.setString(1, notification.getStatus().name());
+                        ps.setTimestamp(2, Timestamp.valueOf(notification.getNextAttemptAt()));
+                        ps.setLong(3, notification.getId());
+                        ps.setTimestamp(4, lease(notification));
+                    }));
+            for (Notification notification : written.sent()) {
+                history.add(results.get(notification.getId()));
+            }
+            for (Notification notification : written.failed()) {
+                history.add(results.get(notification.getId()));
+            }
+            historyAppender.writeInCurrentTransaction(history);
+            recordTransitions(written);
+            return written;
+        });
+
+        // Solo tras confirmar se agenda y se reencola, igual que en el modo por fila
+        for (Notification notification : applied.failed()) {
+            if (notification.getStatus() == NotificationStatus.REINTENTANDO) {
+                retryScheduler.schedule(notification.getId(), notification.getPriority(),
+                        notification.getCreatedAt(), notification.getNextAttemptAt());
+            }
+        }
+        for (Notification notification : applied.deferred()) {
+            retryScheduler.schedule(notification.getId(), notification.getPriority(),
+                    notification.getCreatedAt(), notification.getNextAttemptAt());
+        }
+        for (Notification notification : applied.rejected()) {
+            dispatchQueue.offer(notification.getId(), notification.getPriority(), notification.getCreatedAt());
+        }
+        outcomes.forEach(outcome -> outcome.notification().setLeaseExpiresAt(null));
+
+        int lost = outcomes.size() - applied.size();
+        if (lost > 0) {
+            log.warn("event=lease_lost count={}: notificaciones del lote que volvieron a la cola durante " +
+                    "el envío; se descarta su resultado.", lost);
+        }
+        log.info("Lote cerrado: {} enviadas, {} fallidas, {} devueltas a la cola, {} aplazadas.",
+                applied.sent().size(), applied.failed().size(), applied.rejected().size(), applied.deferred().size());
+    }
+
+    /**
+     * Ejecuta el UPDATE de cada fila en un JDBC batch y devuelve las que cambiaron: las demás
+     * ya no estaban reclamadas con este lease.
+     */
+    private List<Notification> update(String sql, List<Notification> rows,
+                                      ParameterizedPreparedStatementSetter<Notification> setter) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(sql, rows, rows.size(), setter);
+        List<Notification> changed = new ArrayList<>(rows.size());
+        int row = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // SUCCESS_NO_INFO (-2): el driver no informa filas, se da por aplicada
+                if (count != 0) {
+                    changed.add(rows.get(row));
+                }
+                row++;
+            }
+        }
+        return changed;
+    }
+
+    private static Timestamp lease(Notification notification) {
+        return notification.getLeaseExpiresAt() != null ? Timestamp.valueOf(notification.getLeaseExpiresAt()) : null;
+    }
+
+    // Se registran dentro de la transacción; el tracker las aplica al confirmar
+    private void recordTransitions(Applied applied) {
+        statsTracker.transition(NotificationStatus.PROCESANDO, NotificationStatus.ENVIADO, applied.sent().size());
+        for (Notification notification : applied.failed()) {
+            statsTracker.transition(NotificationStatus.PROCESANDO, notification.getStatus());
+        }
+        long retrying = applied.rejected().stream().filter(notificationService::hasPreviousAttempts).count();
+        statsTracker.transition(NotificationStatus.PROCESANDO, NotificationStatus.REINTENTANDO, retrying);
+        statsTracker.transition(NotificationStatus.PROCESANDO, NotificationStatus.PENDIENTE,
+                applied.rejected().size() - retrying);
+        for (Notification notification : applied.deferred()) {
+            statsTracker.transition(NotificationStatus.PROCESANDO, notification.getStatus());
+        }
+    }
+
+    // Filas del lote que sí cambiaron, por resultado
+    private record Applied(List<Notification> sent, List<Notification> rejected,
+                           List<Notification> failed, List<Notification> deferred) {
+        int size() {
+            return sent.size() + rejected.size() + failed.size() + deferred.size();
+        }
+    }
+}
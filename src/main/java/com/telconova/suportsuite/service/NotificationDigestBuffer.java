@@ -0,0 +1,288 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.NotificationChannel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrupación de notificaciones en ráfaga para reglas con coalesceWindowSeconds.
+ * Las notificaciones de una regla para el mismo destinatario y canal se acumulan en memoria
+ * (una entrada por clave, con los contenidos ya renderizados y compartidos entre destinatarios)
+ * y al vencer la ventana se envían como una sola notificación de resumen, renderizada con la
+ * plantilla alerts.digest.template (variables {count}, {rule}, {items} y {omitted}; cada ítem ya
+ * viene renderizado con la plantilla de la regla). El vencimiento lo dispara una rueda de
+ * tiempo, sin recorrer los resúmenes pendientes, en un hilo propio: el envío a la BD no ocupa el
+ * hilo compartido de las tareas @Scheduled.
+ * Si fanOut falla, los resúmenes del lote vuelven a pending y a la rueda con backoff
+ * exponencial (se funden con los que se hayan abierto mientras tanto) hasta max-attempts; los
+ * fallos y los resúmenes abandonados se cuentan en alerts.digest.flush-failures y
+ * alerts.digest.dropped.
+ * Lo pendiente se vacía al apagar, con los mismos reintentos sin esperar a la rueda; una caída
+ * del nodo pierde como mucho una ventana.
+ */
+@Slf4j
+@Component
+public class NotificationDigestBuffer {
+
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 64;
+    // 2 niveles: 64 s y ~68 min; ventanas más largas dan la vuelta
+    private static final int WHEEL_LEVELS = 2;
+    private static final String DEFAULT_TEMPLATE =
+            "{count} notificaciones agrupadas de '{rule}' ({omitted} repetidas u omitidas):\n\n{items}";
+    private static final String ITEM_SEPARATOR = "\n\n";
+
+    private final NotificationService notificationService;
+    private final Map<DigestKey, Digest> pending = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<DigestKey> wheel =
+            new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+    private final Counter coalesced;
+    private final Counter flushFailures;
+    private final Counter dropped;
+
+    // Contenidos distintos que se incluyen completos en un resumen; del resto solo se cuenta
+    @Value("${alerts.digest.max-items:20}")
+    private int maxItems;
+
+    // Vacía usa DEFAULT_TEMPLATE
+    @Value("${alerts.digest.template:}")
+    private String templateSource;
+
+    // Intentos de envío de un resumen antes de abandonarlo; la espera se duplica en cada fallo
+    @Value("${alerts.digest.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${alerts.digest.retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+
+    private CompiledTemplate template = CompiledTemplate.compile(DEFAULT_TEMPLATE);
+    private ScheduledExecutorService flusher;
+
+    public NotificationDigestBuffer(NotificationService notificationService, MeterRegistry meterRegistry) {
+        this.notificationService = notificationService;
+        Gauge.builder("alerts.digest.pending", pending, Map::size)
+                .description("Resúmenes de notificaciones esperando su ventana")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("alerts.digest.coalesced")
+                .description("Notificaciones absorbidas por un resumen en lugar de enviarse solas")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("alerts.digest.flush-failures")
+                .description("Resúmenes cuyo envío falló y se reprogramaron o abandonaron")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("alerts.digest.dropped")
+                .description("Resúmenes abandonados tras agotar max-attempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Acumula la notificación en el resumen del destinatario; el primero de la ventana la
+     * programa en la rueda.
+     */
+    public void add(CompiledRule rule, String recipient, String content) {
+        DigestKey key = new DigestKey(rule.id(), rule.channel(), recipient);
+        boolean[] opened = new boolean[1];
+        pending.compute(key, (k, digest) -> {
+            if (digest == null) {
+                digest = new Digest();
+                opened[0] = true;
+            } else {
+                coalesced.increment();
+            }
+            digest.add(rule, content, maxItems);
+            return digest;
+        });
+        if (opened[0]) {
+            wheel.schedule(key, System.currentTimeMillis() + rule.coalesceWindowMs());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (templateSource != null && !templateSource.isBlank()) {
+            template = CompiledTemplate.compile(templateSource);
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("alert-digest-flusher").daemon().factory());
+        flusher.scheduleAtFixedRate(this::flushDue, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public void flushDue() {
+        try {
+            List<DigestKey> due = wheel.advanceTo(System.currentTimeMillis());
+            if (!due.isEmpty()) {
+                flush(due);
+            }
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría las siguientes ejecuciones del hilo de vaciado
+            log.error("Error vaciando resúmenes vencidos: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Cada vuelta fallida suma un intento: a lo sumo max-attempts vueltas antes de abandonarlos
+        for (int round = 0; !pending.isEmpty() && round <= maxAttempts; round++) {
+            if (round > 0) {
+                log.warn("Reintentando {} resúmenes pendientes al apagar.", pending.size());
+                try {
+                    Thread.sleep(retryBackoffMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            } else {
+                log.info("Enviando {} resúmenes pendientes al apagar.", pending.size());
+            }
+            flush(new ArrayList<>(pending.keySet()));
+        }
+        if (!pending.isEmpty()) {
+            log.error("Se pierden {} resúmenes pendientes al apagar.", pending.size());
+            dropped.increment(pending.size());
+            pending.clear();
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    // Los resúmenes que vencen en el mismo tick se escriben agrupados por regla
+    private void flush(List<DigestKey> keys) {
+        Map<Long, RuleBatch> byRule = new LinkedHashMap<>();
+        for (DigestKey key : keys) {
+            Digest digest = pending.remove(key);
+            if (digest != null) {
+                byRule.computeIfAbsent(key.ruleId(), id -> new RuleBatch(digest.rule))
+                        .add(key, digest, digest.render(template));
+            }
+        }
+        for (RuleBatch batch : byRule.values()) {
+            try {
+                notificationService.fanOut(batch.rule, batch.recipients, batch.contents);
+            } catch (Exception e) {
+                log.error("Error enviando {} resúmenes de la regla ID {}: {}",
+                        batch.recipients.size(), batch.rule.id(), e.getMessage(), e);
+                flushFailures.increment(batch.keys.size());
+                for (int i = 0; i < batch.keys.size(); i++) {
+                    requeue(batch.keys.get(i), batch.digests.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Devuelve a pending un resumen cuyo envío falló. Si mientras tanto se abrió otro para la
+     * misma clave (ya programado), se funde con él; si no, se programa tras el backoff.
+     */
+    private void requeue(DigestKey key, Digest failed) {
+        failed.failedAttempts++;
+        if (failed.failedAttempts >= maxAttempts) {
+            dropped.increment();
+            log.error("Resumen de la regla ID {} para {} abandonado tras {} intentos ({} notificaciones).",
+                    key.ruleId(), key.recipient(), failed.failedAttempts, failed.total);
+            return;
+        }
+        boolean[] reopened = new boolean[1];
+        pending.compute(key, (k, current) -> {
+            if (current == null) {
+                reopened[0] = true;
+                return failed;
+            }
+            current.absorb(failed, maxItems);
+            return current;
+        });
+        if (reopened[0]) {
+            long backoffMs = retryBackoffMs << Math.min(failed.failedAttempts - 1, 16);
+            wheel.schedule(key, System.currentTimeMillis() + backoffMs);
+        }
+    }
+
+    private record DigestKey(Long ruleId, NotificationChannel channel, String recipient) {
+    }
+
+    /**
+     * Contenidos de un destinatario. Se modifica solo dentro de compute de la clave, así que
+     * no necesita sincronización propia.
+     */
+    private static final class Digest {
+
+        private CompiledRule rule;
+        private final List<String> contents = new ArrayList<>(4);
+        private int total;
+        private int failedAttempts;
+
+        void add(CompiledRule latest, String content, int maxItems) {
+            rule = latest;
+            total++;
+            if (contents.size() < maxItems && !contents.contains(content)) {
+                contents.add(content);
+            }
+        }
+
+        // Suma un resumen que no se pudo enviar; conserva la regla más reciente
+        void absorb(Digest failed, int maxItems) {
+            total += failed.total;
+            failedAttempts = Math.max(failedAttempts, failed.failedAttempts);
+            for (String content : failed.contents) {
+                if (contents.size() < maxItems && !contents.contains(content)) {
+                    contents.add(content);
+                }
+            }
+        }
+
+        String render(CompiledTemplate template) {
+            if (total == 1) {
+                return contents.get(0);
+            }
+            return template.render(Map.of(
+                    "count", total,
+                    "rule", rule.name(),
+                    "items", String.join(ITEM_SEPARATOR, contents),
+                    "omitted", total - contents.size()));
+        }
+    }
+
+    private static final class RuleBatch {
+
+        private final CompiledRule rule;
+        private final List<DigestKey> keys = new ArrayList<>();
+        private final List<Digest> digests = new ArrayList<>();
+        private final List<String> recipients = new ArrayList<>();
+        private final List<String> contents = new ArrayList<>();
+
+        RuleBatch(CompiledRule rule) {
+            this.rule = rule;
+        }
+
+        // El resumen se guarda para devolverlo a pending si el envío falla
+        void add(DigestKey key, Digest digest, String content) {
+            keys.add(key);
+            digests.add(digest);
+            recipients.add(key.recipient());
+            contents.add(content);
+        }
+    }
+}
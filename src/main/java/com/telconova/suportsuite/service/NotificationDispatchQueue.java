@@ -0,0 +1,130 @@
+package com.telconova.suportsuite.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cola de despacho en memoria, con una cola por carril de prioridad (NotificationLanes).
+ * Se alimenta al confirmar cada notificación nueva, así los workers la toman en
+ * milisegundos en lugar de esperar el siguiente sondeo.
+ * Dentro de cada carril el orden es por fecha límite virtual: createdAt + prioridad *
+ * aging-step-ms. A igual antigüedad gana la prioridad, pero una notificación que ya esperó
+ * lo suficiente pasa delante de otra más urgente recién llegada.
+ * La BD sigue siendo el registro durable: si la cola se llena o el nodo se reinicia,
+ * el barrido de recuperación de NotificationWorkerPool encuentra las filas pendientes.
+ */
+@Slf4j
+@Component
+public class NotificationDispatchQueue {
+
+    private static final Comparator<Entry> QUEUE_ORDER = Comparator
+            .comparingLong(Entry::virtualDeadlineMs)
+            .thenComparing(Entry::notificationId);
+
+    private final NotificationLanes lanes;
+    private final List<PriorityBlockingQueue<Entry>> queues = new ArrayList<>();
+    // Evita encolar dos veces la misma notificación (p. ej. evento + barrido)
+    private final Set<Long> queuedIds = ConcurrentHashMap.newKeySet();
+    private final Counter overflow;
+
+    // Capacidad total entre todos los carriles
+    @Value("${notifications.queue.capacity:10000}")
+    private int capacity;
+
+    public NotificationDispatchQueue(MeterRegistry meterRegistry, NotificationLanes lanes) {
+        this.lanes = lanes;
+        for (NotificationLane lane : lanes.all()) {
+            PriorityBlockingQueue<Entry> queue = new PriorityBlockingQueue<>(256, QUEUE_ORDER);
+            queues.add(queue);
+            Gauge.builder("notifications.queue.depth", queue, PriorityBlockingQueue::size)
+                    .description("Notificaciones en la cola de despacho en memoria, por carril")
+                    .tag("lane", lane.name())
+                    .register(meterRegistry);
+        }
+        this.overflow = Counter.builder("notifications.queue.overflow")
+                .description("Notificaciones no encoladas en memoria por cola llena")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationQueued(NotificationQueuedEvent event) {
+        offer(event.notificationId(), event.priority(), event.createdAt());
+    }
+
+    /**
+     * Encola una notificación en el carril de su prioridad. Si la cola está llena se descarta:
+     * la fila sigue en la BD y la recogerá el barrido de recuperación.
+     */
+    public boolean offer(Long notificationId, Integer priority, LocalDateTime createdAt) {
+        if (size() >= capacity) {
+            overflow.increment();
+            log.debug("Cola en memoria llena; la notificación ID {} esperará al barrido.", notificationId);
+            return false;
+        }
+        if (!queuedIds.add(notificationId)) {
+            return false;
+        }
+
+        int effectivePriority = priority != null ? priority : 5;
+        long createdMs = (createdAt != null ? createdAt : LocalDateTime.now())
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long virtualDeadlineMs = createdMs + effectivePriority * lanes.agingStepMs();
+
+        queues.get(lanes.forPriority(effectivePriority).index())
+                .offer(new Entry(notificationId, virtualDeadlineMs));
+        return true;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Espera hasta timeoutMs por la primera notificación del carril y devuelve además las que
+     * ya estén disponibles, hasta maxItems, en orden de fecha límite virtual.
+     */
+    public List<Long> poll(NotificationLane lane, int maxItems, long timeoutMs) throws InterruptedException {
+        PriorityBlockingQueue<Entry> queue = queues.get(lane.index());
+        Entry first = queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return List.of();
+        }
+
+        List<Entry> entries = new ArrayList<>(maxItems);
+        entries.add(first);
+        queue.drainTo(entries, maxItems - 1);
+
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            queuedIds.remove(entry.notificationId());
+            ids.add(entry.notificationId());
+        }
+        return ids;
+    }
+
+    public int size() {
+        return queuedIds.size();
+    }
+
+    public int size(NotificationLane lane) {
+        return queues.get(lane.index()).size();
+    }
+
+    private record Entry(Long notificationId, long virtualDeadlineMs) {
+    }
+}
@@ -0,0 +1,252 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.Notification;
+import com.telconova.suportsuite.entity.NotificationChannel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Motor de despacho: cada envío corre en su propio hilo virtual, de modo que la E/S
+ * bloqueante de los NotificationSender no ocupa hilos de plataforma.
+ * Cada canal tiene su propio límite de envíos simultáneos, así un gateway SMS lento
+ * no acapara la capacidad del correo. Antes de enviar se aplican además los límites de tasa
+ * (NotificationRateLimiter): lo que los supera se reprograma, sin contar como fallo.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationDispatcher {
+
+    private static final String LIMIT_PROPERTY = "notifications.dispatch.max-in-flight.";
+
+    private final NotificationService notificationService;
+    private final NotificationDispatchQueue dispatchQueue;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final NotificationLanes lanes;
+    private final NotificationRateLimiter rateLimiter;
+    private final NotificationRetryScheduler retryScheduler;
+
+    @Value("${notifications.dispatch.max-in-flight.default:20}")
+    private int defaultMaxInFlight;
+
+    // Tiempo máximo esperando un permiso del canal antes de devolver la notificación a la cola
+    @Value("${notifications.dispatch.permit-timeout-ms:2000}")
+    private long permitTimeoutMs;
+
+    private final Map<NotificationChannel, ChannelLimiter> limiters = new EnumMap<>(NotificationChannel.class);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Timer deliveryLatency;
+
+    @PostConstruct
+    public void init() {
+        deliveryLatency = Timer.builder("notifications.delivery.latency")
+                .description("Tiempo entre la creación y el envío de la notificación")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            int limit = environment.getProperty(LIMIT_PROPERTY + channel.name().toLowerCase(),
+                    Integer.class, defaultMaxInFlight);
+            limiters.put(channel, new ChannelLimiter(channel, limit));
+            log.info("Canal {}: máximo {} envíos simultáneos.", channel, limit);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Quedaron envíos en curso al apagar el despachador.");
+        }
+    }
+
+    /**
+     * Envía la notificación en un hilo virtual respetando el límite de su canal.
+     * El futuro nunca termina con excepción: los errores ya quedan registrados en la notificación.
+     */
+    public CompletableFuture<Void> dispatch(Notification notification) {
+        return CompletableFuture.runAsync(() -> send(notification), executor);
+    }
+
+    private void send(Notification notification) {
+        LocalDateTime retryAt = rateLimitRetryAt(notification);
+        if (retryAt != null) {
+            notificationService.deferClaim(notification, retryAt);
+            retryScheduler.schedule(notification.getId(), notification.getPriority(),
+                    notification.getCreatedAt(), retryAt);
+            return;
+        }
+
+        ChannelLimiter limiter = notification.getChannel() != null
+                ? limiters.get(notification.getChannel())
+                : null;
+
+        if (limiter == null) {
+            // Sin canal no hay límite que aplicar; processNotification registrará el fallo
+            process(notification);
+            return;
+        }
+
+        if (!limiter.acquire()) {
+            limiter.rejections.increment();
+            log.warn("Canal {} saturado: notificación ID {} devuelta a la cola.",
+                    notification.getChannel(), notification.getId());
+            notificationService.releaseClaim(notification);
+            // Vuelve a la cola en memoria: la espera del permiso ya actúa como contrapresión
+            dispatchQueue.offer(notification.getId(), notification.getPriority(), notification.getCreatedAt());
+            return;
+        }
+
+        try {
+            process(notification);
+        } finally {
+            limiter.release();
+        }
+    }
+
+    /**
+     * Solo envía, sin tocar la BD: el estado final lo escribe quien procesa el lote completo
+     * (NotificationChunkProcessor). Respeta igualmente el límite del canal.
+     */
+    public CompletableFuture<SendOutcome> sendOnly(Notification notification) {
+        return CompletableFuture.supplyAsync(() -> attemptSend(notification), executor);
+    }
+
+    private SendOutcome attemptSend(Notification notification) {
+        LocalDateTime retryAt = rateLimitRetryAt(notification);
+        if (retryAt != null) {
+            return SendOutcome.deferred(notification, retryAt);
+        }
+
+        ChannelLimiter limiter = notification.getChannel() != null
+                ? limiters.get(notification.getChannel())
+                : null;
+
+        if (limiter != null && !limiter.acquire()) {
+            limiter.rejections.increment();
+            log.warn("Canal {} saturado: notificación ID {} devuelta a la cola.",
+                    notification.getChannel(), notification.getId());
+            return SendOutcome.rejected(notification);
+        }
+
+        try {
+            if (!notificationService.resolveSender(notification).send(notification)) {
+                return SendOutcome.failed(notification, "Error en el envío de la notificación");
+            }
+            if (notification.getCreatedAt() != null) {
+                Duration elapsed = Duration.between(notification.getCreatedAt(), LocalDateTime.now());
+                deliveryLatency.record(elapsed);
+                lanes.forPriority(notification.getPriority()).recordLatency(elapsed);
+            }
+            return SendOutcome.sent(notification);
+        } catch (Exception e) {
+            log.error("Excepción al intentar enviar notificación ID {}: {}", notification.getId(), e.getMessage());
+            return SendOutcome.failed(notification, "Excepción durante el envío: " + e.getMessage());
+        } finally {
+            if (limiter != null) {
+                limiter.release();
+            }
+        }
+    }
+
+    // null si puede enviarse ya; si no, cuándo volver a intentarlo
+    private LocalDateTime rateLimitRetryAt(Notification notification) {
+        long waitMs = rateLimiter.tryAcquire(notification);
+        if (waitMs == 0) {
+            return null;
+        }
+        log.debug("Notificación ID {} aplazada {} ms por límite de tasa.", notification.getId(), waitMs);
+        return LocalDateTime.now().plus(Duration.ofMillis(waitMs));
+    }
+
+    private void process(Notification notification) {
+        try {
+            notificationService.processNotification(notification);
+            recordDeliveryLatency(notification);
+        } catch (Exception e) {
+            log.error("Error procesando notificación ID {} : {}", notification.getId(), e.getMessage());
+            // IMPORTANTE: Registrar el fallo para actualizar el contador de reintentos
+            notificationService.handleFailure(notification, e.getMessage());
+        }
+    }
+
+    // Tiempo desde que la notificación se creó hasta que se envió
+    private void recordDeliveryLatency(Notification notification) {
+        if (notification.getStatus() == Notification.NotificationStatus.ENVIADO
+                && notification.getCreatedAt() != null && notification.getSentAt() != null) {
+            Duration elapsed = Duration.between(notification.getCreatedAt(), notification.getSentAt());
+            deliveryLatency.record(elapsed);
+            lanes.forPriority(notification.getPriority()).recordLatency(elapsed);
+        }
+    }
+
+    /**
+     * Permisos, envíos en curso y métricas de un canal.
+     */
+    private final class ChannelLimiter {
+        private final Semaphore permits;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Timer permitWait;
+        private final Counter rejections;
+
+        private ChannelLimiter(NotificationChannel channel, int maxInFlight) {
+            String tag = channel.name();
+            this.permits = new Semaphore(maxInFlight);
+            this.permitWait = Timer.builder("notifications.dispatch.permit.wait")
+                    .description("Espera por un permiso de envío del canal")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+            this.rejections = Counter.builder("notifications.dispatch.rejected")
+                    .description("Envíos devueltos a la cola por saturación del canal")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+            Gauge.builder("notifications.dispatch.inflight", inFlight, AtomicInteger::get)
+                    .description("Envíos en curso por canal")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+        }
+
+        private boolean acquire() {
+            long start = System.nanoTime();
+            try {
+                boolean acquired = permits.tryAcquire(permitTimeoutMs, TimeUnit.MILLISECONDS);
+                if (acquired) {
+                    inFlight.incrementAndGet();
+                }
+                return acquired;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                permitWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void release() {
+            inFlight.decrementAndGet();
+            permits.release();
+        }
+    }
+}
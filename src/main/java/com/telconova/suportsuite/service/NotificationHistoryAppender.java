@@ -0,0 +1,258 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.Notification.NotificationStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escritura diferida del historial de notificaciones.
+ * Cada transición se encola en un buffer acotado y un hilo la escribe con INSERT por lotes
+ * (JDBC batch) al llenarse el lote o al pasar el intervalo de vaciado. Si el buffer está lleno
+ * se escribe en el momento, y al apagar la aplicación se vacía lo pendiente.
+ * Una escritura que falla se reintenta con espera exponencial (write-attempts, retry-backoff-ms);
+ * si sigue fallando, el hilo de vaciado devuelve el lote al buffer para el siguiente ciclo y lo
+ * que ya no cabe se cuenta en notifications.history.dropped.
+ */
+@Slf4j
+@Component
+public class NotificationHistoryAppender {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notification_history (notification_id, status, description, error_details, timestamp) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final Counter roundTrips;
+    private final Counter records;
+    private final Counter dropped;
+
+    @Value("${notifications.history.buffer-capacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${notifications.history.batch-size:200}")
+    private int batchSize;
+
+    @Value("${notifications.history.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${notifications.history.write-attempts:3}")
+    private int writeAttempts;
+
+    @Value("${notifications.history.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    private BlockingQueue<HistoryRecord> buffer;
+    private Thread flusher;
+    private volatile boolean running;
+
+    public NotificationHistoryAppender(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Idas a la BD frente a registros escritos: su cociente son round trips por transición
+        this.roundTrips = Counter.builder("notifications.history.round_trips")
+                .description("Escrituras de historial enviadas a la BD")
+                .register(meterRegistry);
+        this.records = Counter.builder("notifications.history.records")
+                .description("Registros de historial escritos")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("notifications.history.dropped")
+                .description("Registros de historial descartados tras agotar los reintentos")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        running = true;
+        flusher = Thread.ofPlatform().name("notification-history-flusher").daemon().start(this::runFlusher);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+
+        // Garantiza que nada de lo encolado se pierda al apagar
+        List<HistoryRecord> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            if (!write(remaining)) {
+                drop(remaining);
+            }
+            log.info("Historial vaciado al apagar: {} registros.", remaining.size());
+        }
+    }
+
+    /**
+     * Encola una transición de estado. Dentro de una transacción se encola al confirmar, para
+     * no escribir historial de una notificación que aún no existe (o que se revierte).
+     */
+    public void append(Long notificationId, NotificationStatus status, String description, String errorDetails) {
+        HistoryRecord record = HistoryRecord.now(notificationId, status, description, errorDetails);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(record);
+                }
+            });
+        } else {
+            enqueue(record);
+        }
+    }
+
+    private void enqueue(HistoryRecord record) {
+        if (!buffer.offer(record)) {
+            // Buffer lleno: escritura síncrona para no perder el registro
+            List<HistoryRecord> single = List.of(record);
+            if (!write(single)) {
+                drop(single);
+            }
+        }
+    }
+
+    private void runFlusher() {
+        List<HistoryRecord> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                HistoryRecord first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Se completa el lote hasta batchSize o hasta que venza el intervalo
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainingNanos <= 0) {
+                        break;
+                    }
+                    HistoryRecord next = buffer.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                writeOrRequeue(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // Al apagar se escribe el lote a medias; el resto del buffer lo vacía shutdown()
+                if (!batch.isEmpty()) {
+                    writeOrRequeue(batch);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Escribe los registros de inmediato, con un solo INSERT por lotes dentro de la transacción
+     * actual (la del procesamiento por lotes, que así confirma todo de una vez).
+     */
+    public void writeInCurrentTransaction(List<HistoryRecord> batch) {
+        if (!batch.isEmpty()) {
+            batchInsert(batch);
+        }
+    }
+
+    // Lo que no se pudo escribir vuelve al buffer (shutdown() vacía lo que quede al apagar)
+    private void writeOrRequeue(List<HistoryRecord> batch) {
+        if (write(batch)) {
+            return;
+        }
+        List<HistoryRecord> overflow = new ArrayList<>();
+        for (HistoryRecord record : batch) {
+            if (!buffer.offer(record)) {
+                overflow.add(record);
+            }
+        }
+        drop(overflow);
+    }
+
+    /**
+     * Escribe el lote en su propia transacción, con hasta writeAttempts intentos y espera
+     * exponencial entre ellos. Devuelve false si no se pudo escribir (o si se interrumpió la espera).
+     */
+    private boolean write(List<HistoryRecord> batch) {
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                requiresNew.executeWithoutResult(status -> batchInsert(batch));
+                return true;
+            } catch (Exception e) {
+                if (attempt >= writeAttempts) {
+                    log.error("Error escribiendo {} registros de historial tras {} intentos: {}",
+                            batch.size(), attempt, e.getMessage());
+                    return false;
+                }
+                log.warn("Error escribiendo {} registros de historial (intento {} de {}): {}",
+                        batch.size(), attempt, writeAttempts, e.getMessage());
+            }
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            backoffMs *= 2;
+        }
+    }
+
+    private void drop(List<HistoryRecord> lost) {
+        if (!lost.isEmpty()) {
+            dropped.increment(lost.size());
+            log.error("Descartados {} registros de historial de notificaciones.", lost.size());
+        }
+    }
+
+    private void batchInsert(List<HistoryRecord> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, record) -> {
+            ps.setLong(1, record.notificationId());
+            ps.setString(2, record.status().name());
+            ps.setString(3, record.description());
+            ps.setString(4, record.errorDetails());
+            ps.setTimestamp(5, Timestamp.valueOf(record.timestamp()));
+        });
+        roundTrips.increment();
+        records.increment(batch.size());
+    }
+
+    public record HistoryRecord(Long notificationId, NotificationStatus status, String description,
+                                String errorDetails, LocalDateTime timestamp) {
+
+        public static HistoryRecord now(Long notificationId, NotificationStatus status,
+                                        String description, String errorDetails) {
+            return new HistoryRecord(notificationId, status, description, errorDetails, LocalDateTime.now());
+        }
+    }
+}
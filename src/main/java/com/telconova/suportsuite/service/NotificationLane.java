@@ -0,0 +1,66 @@
+package com.telconova.suportsuite.service;
+
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+
+/**
+ * Carril de despacho: atiende las prioridades de minPriority a maxPriority con sus propios workers,
+ * su propia cola en memoria y su propio objetivo de latencia p99.
+ */
+public class NotificationLane {
+
+    private final int index;
+    private final String name;
+    private final int minPriority;
+    private final int maxPriority;
+    private final int workers;
+    private final Duration p99Target;
+    private final Timer latency;
+
+    NotificationLane(int index, String name, int minPriority, int maxPriority, int workers,
+                     Duration p99Target, Timer latency) {
+        this.index = index;
+        this.name = name;
+        this.minPriority = minPriority;
+        this.maxPriority = maxPriority;
+        this.workers = workers;
+        this.p99Target = p99Target;
+        this.latency = latency;
+    }
+
+    public int index() {
+        return index;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int minPriority() {
+        return minPriority;
+    }
+
+    public int maxPriority() {
+        return maxPriority;
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    public Duration p99Target() {
+        return p99Target;
+    }
+
+    /**
+     * Registra el tiempo entre la creación y el envío de una notificación de este carril.
+     */
+    public void recordLatency(Duration elapsed) {
+        latency.record(elapsed);
+    }
+
+    Timer latency() {
+        return latency;
+    }
+}
@@ -0,0 +1,104 @@
+package com.telconova.suportsuite.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carriles de prioridad configurados en notifications.lanes.*.
+ * Cada carril toma las prioridades hasta su max-priority (el último, todas las demás), así una
+ * avalancha de envíos masivos no retrasa una alerta urgente que llega a mitad de ciclo.
+ * Dentro del carril las notificaciones envejecen: cada aging-step-ms de espera equivale a
+ * subir un nivel de prioridad, de modo que las de menor prioridad nunca esperan para siempre.
+ * Sin configuración hay un solo carril que atiende todas las prioridades.
+ */
+@Slf4j
+@Component
+public class NotificationLanes {
+
+    private static final String PREFIX = "notifications.lanes.";
+
+    private final List<NotificationLane> lanes = new ArrayList<>();
+    private final long agingStepMs;
+
+    public NotificationLanes(Environment environment, MeterRegistry meterRegistry) {
+        this.agingStepMs = environment.getProperty(PREFIX + "aging-step-ms", Long.class, 300_000L);
+        String[] names = environment.getProperty(PREFIX + "names", String[].class, new String[]{"general"});
+
+        List<LaneConfig> configs = new ArrayList<>();
+        for (String name : names) {
+            configs.add(new LaneConfig(name.trim(), environment.getProperty(
+                    PREFIX + name.trim() + ".max-priority", Integer.class, Integer.MAX_VALUE)));
+        }
+        configs.sort(Comparator.comparingInt(LaneConfig::maxPriority));
+
+        for (int i = 0; i < configs.size(); i++) {
+            String name = configs.get(i).name();
+            // El último carril recibe todo lo que no entra en los anteriores
+            int maxPriority = i == configs.size() - 1 ? Integer.MAX_VALUE : configs.get(i).maxPriority();
+            int workers = environment.getProperty(PREFIX + name + ".workers", Integer.class, 1);
+            Duration p99Target = Duration.ofMillis(
+                    environment.getProperty(PREFIX + name + ".p99-target-ms", Long.class, 60_000L));
+
+            Timer latency = Timer.builder("notifications.lane.latency")
+                    .description("Tiempo entre la creación y el envío, por carril")
+                    .tag("lane", name)
+                    .publishPercentiles(0.99)
+                    .serviceLevelObjectives(p99Target)
+                    .register(meterRegistry);
+
+            // El primero recibe todo lo que está por debajo del resto
+            int previousMax = i == 0 ? Integer.MIN_VALUE : configs.get(i - 1).maxPriority();
+            int minPriority = i == 0 || previousMax == Integer.MAX_VALUE ? previousMax : previousMax + 1;
+            lanes.add(new NotificationLane(i, name, minPriority, maxPriority, workers, p99Target, latency));
+        }
+    }
+
+    public List<NotificationLane> all() {
+        return lanes;
+    }
+
+    public NotificationLane forPriority(Integer priority) {
+        int value = priority != null ? priority : 5;
+        for (NotificationLane lane : lanes) {
+            if (value <= lane.maxPriority()) {
+                return lane;
+            }
+        }
+        return lanes.get(lanes.size() - 1);
+    }
+
+    public long agingStepMs() {
+        return agingStepMs;
+    }
+
+    /**
+     * Avisa cuando el p99 reciente de un carril supera su objetivo, señal de que necesita
+     * más workers o más capacidad en su canal.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void checkLatencyTargets() {
+        for (NotificationLane lane : lanes) {
+            for (ValueAtPercentile percentile : lane.latency().takeSnapshot().percentileValues()) {
+                double p99Ms = percentile.value(TimeUnit.MILLISECONDS);
+                if (percentile.percentile() == 0.99 && p99Ms > lane.p99Target().toMillis()) {
+                    log.warn("Carril {}: p99 de {} ms supera el objetivo de {} ms.",
+                            lane.name(), Math.round(p99Ms), lane.p99Target().toMillis());
+                }
+            }
+        }
+    }
+
+    private record LaneConfig(String name, int maxPriority) {
+    }
+}
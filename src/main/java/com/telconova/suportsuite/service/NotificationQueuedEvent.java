@@ -0,0 +1,10 @@
+package com.telconova.suportsuite.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado cuando una notificación queda en cola. Se entrega a la cola en memoria
+ * solo después del commit, para que ningún worker vea una fila que todavía no existe.
+ */
+public record NotificationQueuedEvent(Long notificationId, Integer priority, LocalDateTime createdAt) {
+}
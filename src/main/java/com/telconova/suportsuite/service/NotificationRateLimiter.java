@@ -0,0 +1,140 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.Notification;
+import com.telconova.suportsuite.entity.NotificationChannel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Límites de tasa del envío (notifications.rate.*): un token bucket por canal, para no pasar
+ * el límite del proveedor, y otro por canal y destinatario, para no saturar a una persona.
+ * Cada cubo es un CAS sobre su propio contador, así los workers solo compiten si envían al
+ * mismo destinatario. Los cubos de destinatarios se crean al primer envío y un barrido
+ * periódico descarta los que ya se rellenaron, de modo que la memoria depende de los
+ * destinatarios activos y no de todos los que alguna vez recibieron algo.
+ */
+@Slf4j
+@Component
+public class NotificationRateLimiter {
+
+    private static final String PREFIX = "notifications.rate.";
+
+    private final Map<NotificationChannel, TokenBucket> channelBuckets = new EnumMap<>(NotificationChannel.class);
+    private final Map<RecipientKey, TokenBucket> recipientBuckets = new ConcurrentHashMap<>();
+    private final double recipientPerSecond;
+    private final int recipientBurst;
+    private final int maxRecipientBuckets;
+    private final Counter channelThrottled;
+    private final Counter recipientThrottled;
+
+    public NotificationRateLimiter(Environment environment, MeterRegistry meterRegistry) {
+        long now = System.nanoTime();
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            String prefix = PREFIX + channel.name().toLowerCase() + ".";
+            Double perSecond = environment.getProperty(prefix + "per-second", Double.class);
+            if (perSecond != null && perSecond > 0) {
+                int burst = environment.getProperty(prefix + "burst", Integer.class, (int) Math.ceil(perSecond));
+                channelBuckets.put(channel, new TokenBucket(perSecond, burst, now));
+                log.info("Canal {}: límite de {} envíos/s (ráfaga {}).", channel, perSecond, burst);
+            }
+        }
+
+        double perMinute = environment.getProperty(PREFIX + "recipient.per-minute", Double.class, 0d);
+        this.recipientPerSecond = perMinute / 60d;
+        this.recipientBurst = environment.getProperty(PREFIX + "recipient.burst", Integer.class, 1);
+        this.maxRecipientBuckets = environment.getProperty(PREFIX + "recipient.max-buckets", Integer.class, 100_000);
+
+        this.channelThrottled = Counter.builder("notifications.rate.throttled")
+                .description("Envíos aplazados por límite de tasa")
+                .tag("scope", "channel")
+                .register(meterRegistry);
+        this.recipientThrottled = Counter.builder("notifications.rate.throttled")
+                .description("Envíos aplazados por límite de tasa")
+                .tag("scope", "recipient")
+                .register(meterRegistry);
+        Gauge.builder("notifications.rate.recipient.buckets", recipientBuckets, Map::size)
+                .description("Cubos de destinatarios en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Toma los permisos del envío. Devuelve 0 si puede enviarse ya o, si no, los milisegundos
+     * que debe esperar; en ese caso no consume ningún permiso.
+     */
+    public long tryAcquire(Notification notification) {
+        long now = System.nanoTime();
+
+        TokenBucket recipientBucket = recipientBucket(notification, now);
+        if (recipientBucket != null) {
+            long wait = recipientBucket.tryAcquire(now);
+            if (wait > 0) {
+                recipientThrottled.increment();
+                return toMillis(wait);
+            }
+        }
+
+        TokenBucket channelBucket = notification.getChannel() != null
+                ? channelBuckets.get(notification.getChannel())
+                : null;
+        if (channelBucket != null) {
+            long wait = channelBucket.tryAcquire(now);
+            if (wait > 0) {
+                if (recipientBucket != null) {
+                    recipientBucket.refund();
+                }
+                channelThrottled.increment();
+                return toMillis(wait);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Descarta los cubos de destinatarios ya llenos: uno nuevo se comportaría igual.
+     */
+    @Scheduled(fixedDelayString = "${notifications.rate.recipient.evict-interval-ms:60000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int before = recipientBuckets.size();
+        recipientBuckets.values().removeIf(bucket -> bucket.isIdle(now));
+        if (before > 0) {
+            log.debug("Cubos de destinatarios: {} -> {}", before, recipientBuckets.size());
+        }
+    }
+
+    private TokenBucket recipientBucket(Notification notification, long now) {
+        if (recipientPerSecond <= 0 || notification.getRecipient() == null) {
+            return null;
+        }
+        RecipientKey key = new RecipientKey(notification.getChannel(), notification.getRecipient());
+        TokenBucket bucket = recipientBuckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (recipientBuckets.size() >= maxRecipientBuckets) {
+            evictIdle();
+            if (recipientBuckets.size() >= maxRecipientBuckets) {
+                // Todos activos: antes que crecer sin límite, este destinatario no se limita
+                return null;
+            }
+        }
+        return recipientBuckets.computeIfAbsent(key, k -> new TokenBucket(recipientPerSecond, recipientBurst, now));
+    }
+
+    private static long toMillis(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private record RecipientKey(NotificationChannel channel, String recipient) {
+    }
+}
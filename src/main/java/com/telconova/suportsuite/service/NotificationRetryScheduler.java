@@ -0,0 +1,139 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.DTO.QueuedNotification;
+import com.telconova.suportsuite.entity.Notification.NotificationStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Agenda de reintentos (HU-005.3) con backoff exponencial y jitter.
+ * Cada reintento se programa en una rueda de tiempo jerárquica en memoria y, al vencer,
+ * pasa a la cola de despacho. Las notificaciones que siguen fallando no generan consultas
+ * a la BD hasta que les toca. Al arrancar la rueda se reconstruye desde next_attempt_at.
+ * La rueda solo guarda los reintentos que vencen dentro de wheel-horizon-ms, hasta
+ * wheel-max-entries: así la memoria no crece con el atraso de reintentos. Los demás siguen en
+ * la BD como REINTENTANDO y, cuando vencen, los reclama el barrido de recuperación de
+ * NotificationWorkerPool.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationRetryScheduler {
+
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 64;
+    // 3 niveles: 64 s, ~68 min y ~3 días; lo que quede más lejos da la vuelta
+    private static final int WHEEL_LEVELS = 3;
+
+    private final NotificationBacklogLoader backlogLoader;
+    private final NotificationDispatchQueue dispatchQueue;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notifications.retry.base-delay-ms:30000}")
+    private long baseDelayMs;
+
+    @Value("${notifications.retry.max-delay-ms:3600000}")
+    private long maxDelayMs;
+
+    @Value("${notifications.retry.multiplier:2.0}")
+    private double multiplier;
+
+    // Fracción de variación aleatoria (+/-) para que los reintentos no lleguen en ráfaga
+    @Value("${notifications.retry.jitter:0.2}")
+    private double jitter;
+
+    @Value("${notifications.retry.wheel-horizon-ms:600000}")
+    private long wheelHorizonMs;
+
+    @Value("${notifications.retry.wheel-max-entries:50000}")
+    private int wheelMaxEntries;
+
+    private final HierarchicalTimingWheel<QueuedNotification> wheel =
+            new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("notifications.retry.scheduled", wheel, HierarchicalTimingWheel::size)
+                .description("Reintentos programados en la rueda de tiempo")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Calcula el próximo intento tras el fallo número attempt (1 = primer fallo).
+     */
+    public LocalDateTime nextAttemptAt(int attempt) {
+        double exponential = baseDelayMs * Math.pow(multiplier, Math.max(0, attempt - 1));
+        double capped = Math.min(exponential, maxDelayMs);
+        double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        long delayMs = Math.max(TICK_MS, Math.round(capped * factor));
+        return LocalDateTime.now().plus(delayMs, ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Programa el reintento en la rueda si vence dentro del horizonte y hay lugar; si no, queda
+     * para el barrido de recuperación. Devuelve true si quedó en la rueda.
+     */
+    public boolean schedule(Long notificationId, Integer priority, LocalDateTime createdAt, LocalDateTime nextAttemptAt) {
+        return scheduleWithinHorizon(new QueuedNotification(notificationId, priority, createdAt, nextAttemptAt),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Reconstruye la agenda con los reintentos guardados en la BD.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        // Por páginas: la rueda solo guarda la proyección mínima de los reintentos cercanos
+        long now = System.currentTimeMillis();
+        long[] scheduled = new long[1];
+        long reviewed = backlogLoader.forEachQueued(NotificationStatus.REINTENTANDO, candidate -> {
+            if (scheduleWithinHorizon(candidate, now)) {
+                scheduled[0]++;
+            }
+            return wheel.size() < wheelMaxEntries;
+        });
+        log.info("Agenda de reintentos reconstruida: {} de {} reintentos revisados en la rueda; "
+                + "el resto lo toma el barrido de recuperación al vencer.", scheduled[0], reviewed);
+    }
+
+    /**
+     * Avanza la rueda y pasa a la cola de despacho los reintentos que ya vencieron.
+     */
+    @Scheduled(fixedRate = TICK_MS)
+    public void fireDueRetries() {
+        List<QueuedNotification> due = wheel.advanceTo(System.currentTimeMillis());
+        for (QueuedNotification candidate : due) {
+            dispatchQueue.offer(candidate.id(), candidate.priority(), candidate.createdAt());
+        }
+        if (!due.isEmpty()) {
+            log.debug("{} reintentos vencidos enviados a la cola de despacho.", due.size());
+        }
+    }
+
+    private boolean scheduleWithinHorizon(QueuedNotification candidate, long nowMs) {
+        long dueMs = candidate.nextAttemptAt() != null ? toEpochMs(candidate.nextAttemptAt()) : nowMs;
+        if (dueMs - nowMs > wheelHorizonMs || wheel.size() >= wheelMaxEntries) {
+            return false;
+        }
+        wheel.schedule(candidate, dueMs);
+        return true;
+    }
+
+    private long toEpochMs(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
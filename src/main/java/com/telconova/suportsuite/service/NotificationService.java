@@ -1,25 +1,42 @@
 package com.telconova.suportsuite.service;
 
+import com.telconova.suportsuite.DTO.BatchNotificationResult;
 import com.telconova.suportsuite.DTO.CreateNotificationRequest;
 import com.telconova.suportsuite.DTO.NotificationDTO;
+import com.telconova.suportsuite.DTO.NotificationQueuePage;
 import com.telconova.suportsuite.DTO.NotificationStatusDTO;
 import com.telconova.suportsuite.entity.AlertRule;
 import com.telconova.suportsuite.entity.Notification;
-import com.telconova.suportsuite.entity.NotificationHistory;
 import com.telconova.suportsuite.entity.Notification.NotificationStatus;
+import com.telconova.suportsuite.entity.NotificationChannel;
 import com.telconova.suportsuite.repository.AlertRuleRepository;
-import com.telconova.suportsuite.repository.NotificationHistoryRepository;
 import com.telconova.suportsuite.repository.NotificationRepository;
+import com.telconova.suportsuite.exception.BadRequestException;
 import com.telconova.suportsuite.exception.ResourceNotFoundException;
+import com.telconova.suportsuite.service.NotificationHistoryAppender.HistoryRecord;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -28,11 +45,24 @@ import java.util.stream.Collectors;
 public class NotificationService {
 
     private static final int MAX_REINTENTOS_DEFAULT = 3;
+    private static final int MAX_QUEUE_PAGE_SIZE = 500;
 
     private final NotificationRepository notificationRepository;
-    private final NotificationHistoryRepository historyRepository;
+    private final NotificationHistoryAppender historyAppender;
     private final AlertRuleRepository alertRuleRepository;
     private final List<NotificationSender> notificationSenders;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationRetryScheduler retryScheduler;
+    private final NotificationStatsTracker statsTracker;
+    private final Validator validator;
+    private final EntityManager entityManager;
+
+    @Value("${notifications.ingest.max-batch-size:5000}")
+    private int maxBatchSize;
+
+    // Igual a hibernate.jdbc.batch_size: cada tramo se envía como un solo lote JDBC
+    @Value("${notifications.ingest.insert-chunk-size:50}")
+    private int insertChunkSize;
 
 
     @Transactional
@@ -43,12 +73,156 @@ public class NotificationService {
         AlertRule alertRule = alertRuleRepository.findById(request.getAlertRuleId())
                 .orElseThrow(() -> new ResourceNotFoundException("Regla de Alerta no encontrada con ID: " + request.getAlertRuleId()));
 
+        Notification saved = notificationRepository.save(buildNotification(request, alertRule));
+        statsTracker.created(saved.getStatus());
+
+        // El historial se encola al confirmar la transacción
+        addHistory(saved, NotificationStatus.PENDIENTE, "Notificación agregada a la cola de envíos", null);
+
+        // Se entrega a la cola en memoria cuando la transacción confirma
+        eventPublisher.publishEvent(
+                new NotificationQueuedEvent(saved.getId(), saved.getPriority(), saved.getCreatedAt()));
+
+        log.info("Notificación ID {} agregada a la cola ", saved.getId());
+
+        return convertToDto(saved);
+    }
+
+    /**
+     * Carga masiva: valida cada elemento, resuelve todas las reglas con una sola consulta IN
+     * e inserta las notificaciones y su historial inicial en lotes JDBC dentro de una
+     * transacción. Los elementos inválidos se rechazan sin afectar al resto.
+     */
+    @Transactional
+    public List<BatchNotificationResult> createNotifications(List<CreateNotificationRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new BadRequestException(
+                    "La carga masiva admite como máximo " + maxBatchSize + " notificaciones por petición");
+        }
+
+        Set<Long> ruleIds = requests.stream()
+                .map(CreateNotificationRequest::getAlertRuleId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, AlertRule> rules = alertRuleRepository.findAllById(ruleIds).stream()
+                .collect(Collectors.toMap(AlertRule::getId, Function.identity()));
+
+        List<BatchNotificationResult> results = new ArrayList<>(requests.size());
+        List<Notification> accepted = new ArrayList<>();
+        List<BatchNotificationResult> acceptedResults = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            CreateNotificationRequest request = requests.get(i);
+            String error = validateForBatch(request, rules);
+            if (error != null) {
+                results.add(BatchNotificationResult.rejected(i, error));
+                continue;
+            }
+            BatchNotificationResult result = BatchNotificationResult.created(i);
+            results.add(result);
+            accepted.add(buildNotification(request, rules.get(request.getAlertRuleId())));
+            acceptedResults.add(result);
+        }
+
+        List<Notification> saved = persistQueued(accepted);
+        for (int i = 0; i < saved.size(); i++) {
+            acceptedResults.get(i).setNotificationId(saved.get(i).getId());
+        }
+
+        log.info("Carga masiva: {} notificaciones creadas, {} rechazadas.",
+                accepted.size(), requests.size() - accepted.size());
+        return results;
+    }
+
+    /**
+     * Fan-out de una regla: crea la notificación de cada destinatario con el contenido ya
+     * renderizado y una misma referencia a la regla (sin consultarla), e inserta notificaciones
+     * e historial en lotes JDBC dentro de una sola transacción por bloque de destinatarios.
+     */
+    @Transactional
+    public int fanOut(CompiledRule rule, String content, List<String> recipients) {
+        return persistFanOut(rule, recipients, index -> content);
+    }
+
+    /**
+     * Igual que fanOut, con un contenido por destinatario (resúmenes de NotificationDigestBuffer).
+     */
+    @Transactional
+    public int fanOut(CompiledRule rule, List<String> recipients, List<String> contents) {
+        return persistFanOut(rule, recipients, contents::get);
+    }
+
+    private int persistFanOut(CompiledRule rule, List<String> recipients, IntFunction<String> contentAt) {
+        AlertRule alertRule = entityManager.getReference(AlertRule.class, rule.id());
+
+        List<Notification> notifications = new ArrayList<>(recipients.size());
+        for (int i = 0; i < recipients.size(); i++) {
+            notifications.add(buildNotification(recipients.get(i), rule.subject(), contentAt.apply(i),
+                    rule.channel(), rule.priority(), alertRule));
+        }
+        persistQueued(notifications);
+        return notifications.size();
+    }
+
+    /**
+     * Persiste notificaciones nuevas por tramos del tamaño del lote JDBC, limpiando el contexto
+     * de persistencia para que la memoria no crezca con el tamaño de la petición. El historial
+     * inicial va en un único INSERT por lotes y la cola en memoria se alimenta al confirmar.
+     */
+    private List<Notification> persistQueued(List<Notification> notifications) {
+        List<HistoryRecord> history = new ArrayList<>(notifications.size());
+        List<NotificationQueuedEvent> events = new ArrayList<>(notifications.size());
+        for (int from = 0; from < notifications.size(); from += insertChunkSize) {
+            List<Notification> chunk = notifications.subList(from, Math.min(from + insertChunkSize, notifications.size()));
+            notificationRepository.saveAll(chunk);
+            entityManager.flush();
+            entityManager.clear();
+
+            for (Notification saved : chunk) {
+                history.add(HistoryRecord.now(saved.getId(), NotificationStatus.PENDIENTE,
+                        "Notificación agregada a la cola de envíos", null));
+                events.add(new NotificationQueuedEvent(saved.getId(), saved.getPriority(), saved.getCreatedAt()));
+            }
+        }
+
+        historyAppender.writeInCurrentTransaction(history);
+        statsTracker.transition(null, NotificationStatus.PENDIENTE, notifications.size());
+        events.forEach(eventPublisher::publishEvent);
+        return notifications;
+    }
+
+    private String validateForBatch(CreateNotificationRequest request, Map<Long, AlertRule> rules) {
+        if (request == null) {
+            return "Elemento vacío";
+        }
+        Set<ConstraintViolation<CreateNotificationRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (!rules.containsKey(request.getAlertRuleId())) {
+            return "Regla de Alerta no encontrada con ID: " + request.getAlertRuleId();
+        }
+        return null;
+    }
+
+    private Notification buildNotification(CreateNotificationRequest request, AlertRule alertRule) {
+        return buildNotification(request.getRecipient(), request.getSubject(), request.getContent(),
+                request.getChannel(), request.getPriority(), alertRule);
+    }
+
+    private Notification buildNotification(String recipient, String subject, String content,
+                                           NotificationChannel channel, Integer priority, AlertRule alertRule) {
         Notification notification = new Notification();
-        notification.setRecipient(request.getRecipient());
-        notification.setContent(request.getContent());
-        notification.setSubject(request.getSubject());
-        notification.setChannel(request.getChannel());
-        notification.setPriority(request.getPriority());
+        notification.setRecipient(recipient);
+        notification.setContent(content);
+        notification.setSubject(subject);
+        notification.setChannel(channel);
+        if (priority != null) {
+            notification.setPriority(priority);
+        }
         notification.setAlertRule(alertRule);
 
         // Inicializar los campos de reintentos
@@ -58,80 +232,183 @@ public class NotificationService {
         if (notification.getMaxReintentos() == null) {
             notification.setMaxReintentos(MAX_REINTENTOS_DEFAULT);
         }
-
-        Notification saved = notificationRepository.save(notification);
-
-        // El historial se guarda en una nueva transacción
-        addHistory(saved, NotificationStatus.PENDIENTE, "Notificación agregada a la cola de envíos", null);
-
-        log.info("Notificación ID {} agregada a la cola ", saved.getId());
-
-        return convertToDto(saved);
+        return notification;
     }
 
     // HU-005.2: Procesar mensajes de la cola en orden
-    @Transactional
+    // Sin @Transactional a propósito: el envío es E/S bloqueante y corre en paralelo desde
+    // NotificationDispatcher; mantener la transacción abierta retendría una de las 5
+    // conexiones de Hikari por cada envío en curso.
+    // La notificación llega reclamada (PROCESANDO con lease) por claimBatch/claimByIds. Un envío
+    // lento puede durar más que el lease: el barrido la devuelve a la cola y otro worker la
+    // reclama. Por eso el resultado se escribe con un UPDATE condicionado al lease propio y, si
+    // ya no lo tiene, no se registran transiciones, historial ni reintentos.
     public void processNotification (Notification notification) {
         log.info("Procesando notificación ID: {}", notification.getId());
+        LocalDateTime claimedLease = notification.getLeaseExpiresAt();
 
-        // Actualizar estado a procesando (HU-005.2)
-        notification.setStatus(NotificationStatus.PROCESANDO);
-        notificationRepository.save(notification); // Persistir el estado transitorio
-
-        // El historial se guarda en una nueva transacción
         addHistory(notification, NotificationStatus.PROCESANDO, "Iniciando envío de notificación", null);
 
+        String errorMessage = null;
         try {
             // Buscar el sender apropiado para el canal
-            NotificationSender sender = notificationSenders.stream()
-                    .filter(s -> s.canSend(notification))
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException(
-                            "No hay sender disponible para el canal: " + notification.getChannel()));
+            NotificationSender sender = resolveSender(notification);
 
             // Intentar envío
-            boolean success = sender.send(notification);
-
-            if (success) {
-                // Éxito: marcar como entregada correctamente
-                notification.setStatus(NotificationStatus.ENVIADO);
-                notification.setSentAt(LocalDateTime.now());
-
-                addHistory(notification, NotificationStatus.ENVIADO,
-                        "Notificación enviada correctamente", null);
-                log.info("Notificación ID {} enviada exitosamente ", notification.getId());
-
-            } else {
-                // Manejo de fallo y preparar reintento
-                handleFailure(notification, "Error en el envío de la notificación");
+            if (!sender.send(notification)) {
+                errorMessage = "Error en el envío de la notificación";
             }
         } catch (Exception e) {
             // Manejo de fallo por excepción
             log.error("Excepción al intentar enviar notificación ID {}: {}", notification.getId(), e.getMessage());
-            handleFailure(notification, "Excepción durante el envío: " + e.getMessage());
-        } finally {
-            // Guardar el estado final de la notificación
-            notificationRepository.save(notification);
+            errorMessage = "Excepción durante el envío: " + e.getMessage();
         }
+
+        String description;
+        if (errorMessage == null) {
+            // Éxito: marcar como entregada correctamente
+            notification.setStatus(NotificationStatus.ENVIADO);
+            notification.setSentAt(LocalDateTime.now());
+            description = "Notificación enviada correctamente";
+        } else {
+            // Manejo de fallo y preparar reintento
+            description = registerFailedAttempt(notification, errorMessage);
+        }
+        notification.setLeaseExpiresAt(null);
+
+        // Guardar el estado final y liberar el lease, solo si la fila sigue siendo de este worker
+        int updated = notificationRepository.completeClaim(notification.getId(), notification.getStatus(),
+                notification.getSentAt(), notification.getReintentosCount(), notification.getErrorMenssage(),
+                notification.getNextAttemptAt(), NotificationStatus.PROCESANDO, claimedLease);
+        if (updated == 0) {
+            log.warn("event=lease_lost notification_id={} lease={}: la notificación volvió a la cola " +
+                    "durante el envío; se descarta el resultado ({}).",
+                    notification.getId(), claimedLease, notification.getStatus());
+            return;
+        }
+
+        statsTracker.transition(NotificationStatus.PROCESANDO, notification.getStatus());
+        addHistory(notification, notification.getStatus(), description, errorMessage);
+        if (errorMessage == null) {
+            log.info("Notificación ID {} enviada exitosamente ", notification.getId());
+        } else {
+            scheduleRetryOrGiveUp(notification);
+        }
+    }
+
+    public NotificationSender resolveSender(Notification notification) {
+        return notificationSenders.stream()
+                .filter(s -> s.canSend(notification))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException(
+                        "No hay sender disponible para el canal: " + notification.getChannel()));
     }
 
     /**
-     * Obtiene la cola de notificaciones elegibles para ser procesadas (PENDIENTE y REINTENTANDO).
+     * Reclama atómicamente un lote de notificaciones de la cola (PENDIENTE y REINTENTANDO)
+     * con prioridad dentro del carril indicado y las marca PROCESANDO con un lease. Las filas
+     * bloqueadas por otro worker se saltan, por lo que varios workers (o nodos) nunca reciben
+     * la misma notificación.
      */
-    public List<Notification> getQueueNotifications() {
-        log.debug("Obteniendo notificaciones PENDIENTES y REINTENTANDO para procesamiento de cola.");
-        return notificationRepository.findByStatusInOrderByPriorityAscCreatedAtAsc(
-                List.of(NotificationStatus.PENDIENTE, NotificationStatus.REINTENTANDO)
-        );
+    @Transactional
+    public List<Notification> claimBatch(NotificationLane lane, int batchSize, Duration leaseDuration) {
+        return markClaimed(notificationRepository.lockClaimableIds(lane.minPriority(), lane.maxPriority(),
+                batchSize, LocalDateTime.now()), leaseDuration);
+    }
+
+    /**
+     * Reclama solo las notificaciones indicadas (tomadas de la cola en memoria). Las que otro
+     * worker o nodo ya reclamó, o que dejaron de estar en cola, simplemente no se devuelven.
+     */
+    @Transactional
+    public List<Notification> claimByIds(List<Long> ids, Duration leaseDuration) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return markClaimed(notificationRepository.lockClaimableIdsIn(ids, LocalDateTime.now()), leaseDuration);
+    }
+
+    private List<Notification> markClaimed(List<Long> ids, Duration leaseDuration) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        notificationRepository.markClaimed(ids, NotificationStatus.PROCESANDO,
+                LocalDateTime.now().plus(leaseDuration));
+
+        // findAllById no garantiza orden: se respeta el de la cola (prioridad, antigüedad)
+        List<Notification> claimed = notificationRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(Notification::getPriority)
+                        .thenComparing(Notification::getCreatedAt))
+                .collect(Collectors.toList());
+
+        // Las que ya tenían intentos venían de REINTENTANDO (misma regla que releaseClaim)
+        long retrying = claimed.stream().filter(this::hasPreviousAttempts).count();
+        statsTracker.transition(NotificationStatus.REINTENTANDO, NotificationStatus.PROCESANDO, retrying);
+        statsTracker.transition(NotificationStatus.PENDIENTE, NotificationStatus.PROCESANDO, claimed.size() - retrying);
+
+        log.debug("Reclamadas {} notificaciones con lease de {}", claimed.size(), leaseDuration);
+        return claimed;
+    }
+
+    /**
+     * Libera una notificación reclamada que no se llegó a enviar (canal saturado),
+     * devolviéndola a su estado de cola sin contarla como intento fallido.
+     */
+    @Transactional
+    public void releaseClaim(Notification notification) {
+        NotificationStatus queuedStatus = hasPreviousAttempts(notification)
+                ? NotificationStatus.REINTENTANDO
+                : NotificationStatus.PENDIENTE;
+        int released = notificationRepository.releaseClaim(
+                notification.getId(), queuedStatus, NotificationStatus.PROCESANDO);
+        statsTracker.transition(NotificationStatus.PROCESANDO, queuedStatus, released);
+    }
+
+    /**
+     * Devuelve a la cola una notificación reclamada que superó su límite de tasa, con
+     * next_attempt_at en retryAt para que no se reclame antes. No cuenta como intento fallido.
+     */
+    @Transactional
+    public void deferClaim(Notification notification, LocalDateTime retryAt) {
+        NotificationStatus queuedStatus = hasPreviousAttempts(notification)
+                ? NotificationStatus.REINTENTANDO
+                : NotificationStatus.PENDIENTE;
+        int deferred = notificationRepository.deferClaim(notification.getId(), retryAt,
+                NotificationStatus.REINTENTANDO, NotificationStatus.PENDIENTE, NotificationStatus.PROCESANDO);
+        notification.setStatus(queuedStatus);
+        notification.setNextAttemptAt(retryAt);
+        statsTracker.transition(NotificationStatus.PROCESANDO, queuedStatus, deferred);
+    }
+
+    public boolean hasPreviousAttempts(Notification notification) {
+        return notification.getReintentosCount() != null && notification.getReintentosCount() > 0;
+    }
+
+    /**
+     * Devuelve a la cola las notificaciones cuyo lease venció (worker caído o colgado): a
+     * REINTENTANDO si ya tenían intentos y a PENDIENTE si no, como releaseClaim.
+     */
+    @Transactional
+    public int releaseExpiredLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        int retrying = notificationRepository.releaseExpiredRetries(
+                NotificationStatus.REINTENTANDO, NotificationStatus.PROCESANDO, now);
+        int pending = notificationRepository.releaseExpiredFirstAttempts(
+                NotificationStatus.PENDIENTE, NotificationStatus.PROCESANDO, now);
+        statsTracker.transition(NotificationStatus.PROCESANDO, NotificationStatus.REINTENTANDO, retrying);
+        statsTracker.transition(NotificationStatus.PROCESANDO, NotificationStatus.PENDIENTE, pending);
+        return retrying + pending;
     }
 
     // HU-005.4: Obtener estadísticas para monitoreo
+    // Lee los contadores en memoria de NotificationStatsTracker: no consulta la BD
     public NotificationStatusDTO getEstadisticas(){
-        Long enviado = notificationRepository.countByStatus(NotificationStatus.ENVIADO);
-        Long pendiente= notificationRepository.countByStatus(NotificationStatus.PENDIENTE);
-        Long fallida = notificationRepository.countByStatus(NotificationStatus.FALLIDA);
-        Long procesando = notificationRepository.countByStatus(NotificationStatus.PROCESANDO);
-        Long reintentando = notificationRepository.countByStatus(NotificationStatus.REINTENTANDO);
+        Long enviado = statsTracker.count(NotificationStatus.ENVIADO);
+        Long pendiente= statsTracker.count(NotificationStatus.PENDIENTE);
+        Long fallida = statsTracker.count(NotificationStatus.FALLIDA);
+        Long procesando = statsTracker.count(NotificationStatus.PROCESANDO);
+        Long reintentando = statsTracker.count(NotificationStatus.REINTENTANDO);
 
         Long total = enviado + pendiente + fallida + procesando + reintentando;
 
@@ -144,10 +421,6 @@ public class NotificationService {
         return new NotificationStatusDTO(enviado , colaActiva, fallida, procesando, tazaExito);
     }
 
-    public List<Notification> getNotificationsForRetry() {
-        return notificationRepository.findNotificationsEligibleForRetry();
-    }
-
     public List<NotificationDTO> getErrorLogs() {
         List<Notification> failedAndRetrying =
                 notificationRepository.findByStatusInOrderByCreatedAtDesc(
@@ -159,54 +432,80 @@ public class NotificationService {
                 .collect(Collectors.toList());
     }
 
-    public List<NotificationDTO> getPendingQueueNotifications(){
-        List<Notification> queue = notificationRepository.findByStatusInOrderByPriorityAscCreatedAtAsc(
-                List.of(NotificationStatus.PENDIENTE, NotificationStatus.PROCESANDO)
-        );
-        return queue.stream()
+    /**
+     * Página de la cola (HU-005.2) en orden de envío, de hasta MAX_QUEUE_PAGE_SIZE elementos. El
+     * cursor es la última fila de la página anterior (prioridad, fecha de creación e id); sin
+     * cursor se devuelve la primera página. Se lee una fila de más para saber si hay otra página.
+     */
+    public NotificationQueuePage getPendingQueueNotifications(Integer afterPriority, LocalDateTime afterCreatedAt,
+                                                              Long afterId, int size){
+        List<NotificationStatus> statuses = List.of(NotificationStatus.PENDIENTE, NotificationStatus.PROCESANDO);
+        int pageSize = Math.min(Math.max(size, 1), MAX_QUEUE_PAGE_SIZE);
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<Notification> queue = afterPriority != null && afterCreatedAt != null && afterId != null
+                ? notificationRepository.findQueuePageAfter(statuses, afterPriority, afterCreatedAt, afterId, page)
+                : notificationRepository.findQueueFirstPage(statuses, page);
+        boolean hasMore = queue.size() > pageSize;
+        List<NotificationDTO> items = queue.stream()
+                .limit(pageSize)
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
+        return NotificationQueuePage.of(items, hasMore);
     }
 
     // HU-005.3: Reintentar envío y registrar error
     @Transactional
     public void handleFailure(Notification notification, String errorMessage){
-        notification.setReintentosCount(notification.getReintentosCount()+1);
-        notification.setErrorMenssage(errorMessage); // Usa el setter correcto para 'errorMenssage'
-
-        if (notification.getReintentosCount() < notification.getMaxReintentos()){
-            notification.setStatus(NotificationStatus.REINTENTANDO);
+        NotificationStatus previousStatus = notification.getStatus();
+        String description = registerFailedAttempt(notification, errorMessage);
+        statsTracker.transition(previousStatus, notification.getStatus());
+        addHistory(notification, notification.getStatus(), description, errorMessage);
+        scheduleRetryOrGiveUp(notification);
+    }
 
-            addHistory(notification, NotificationStatus.REINTENTANDO,
-                    String.format("Intento %d/%d fallido. Se reintentará el envío",
-                            notification.getReintentosCount(), notification.getMaxReintentos()),
-                    errorMessage);
-            log.warn("Notificación ID {} fallida. Reintento {}/{}",
+    // Tras registrar un intento fallido: agenda el reintento o deja constancia del fallo definitivo
+    private void scheduleRetryOrGiveUp(Notification notification) {
+        if (notification.getStatus() == NotificationStatus.REINTENTANDO){
+            // La rueda de reintentos la devuelve a la cola al vencer el backoff
+            retryScheduler.schedule(notification.getId(), notification.getPriority(),
+                    notification.getCreatedAt(), notification.getNextAttemptAt());
+            log.warn("Notificación ID {} fallida. Reintento {}/{} programado para {}",
                     notification.getId(), notification.getReintentosCount(),
-                    notification.getMaxReintentos());
+                    notification.getMaxReintentos(), notification.getNextAttemptAt());
         } else {
-            notification.setStatus(NotificationStatus.FALLIDA);
-
-            addHistory(notification, NotificationStatus.FALLIDA,
-                    "Envío fallido definitivo después de "+ notification.getReintentosCount()+
-                            " intentos", errorMessage);
-
             log.error("Notificación ID {} falló definitivo después de {} intentos ",
                     notification.getId(), notification.getReintentosCount());
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void addHistory (Notification notification, NotificationStatus status,
-                            String message, String errorDetails){
-        NotificationHistory history = new NotificationHistory();
-        history.setNotification(notification);
-        history.setStatus(status);
+    /**
+     * Aplica a la entidad un intento fallido (contador, error, estado y próximo intento) sin
+     * persistirlo ni agendarlo. Devuelve la descripción para el historial.
+     */
+    public String registerFailedAttempt(Notification notification, String errorMessage){
+        notification.setReintentosCount(notification.getReintentosCount()+1);
+        notification.setErrorMenssage(errorMessage); // Usa el setter correcto para 'errorMenssage'
+
+        if (notification.getReintentosCount() < notification.getMaxReintentos()){
+            notification.setStatus(NotificationStatus.REINTENTANDO);
+            // Backoff exponencial con jitter
+            notification.setNextAttemptAt(retryScheduler.nextAttemptAt(notification.getReintentosCount()));
+            return String.format("Intento %d/%d fallido. Se reintentará el envío a las %s",
+                    notification.getReintentosCount(), notification.getMaxReintentos(),
+                    notification.getNextAttemptAt().toLocalTime());
+        }
 
-        history.setDescription(message);
-        history.setErrorDetails(errorDetails);
+        notification.setNextAttemptAt(null);
+        notification.setStatus(NotificationStatus.FALLIDA);
+        return "Envío fallido definitivo después de "+ notification.getReintentosCount()+ " intentos";
+    }
 
-        historyRepository.save(history);
+    // El historial se escribe en diferido y por lotes (NotificationHistoryAppender) en lugar de
+    // abrir una transacción REQUIRES_NEW por cada transición de estado.
+    public void addHistory (Notification notification, NotificationStatus status,
+                            String message, String errorDetails){
+        historyAppender.append(notification.getId(), status, message, errorDetails);
     }
 
     private NotificationDTO convertToDto ( Notification notification){
@@ -216,6 +515,7 @@ public class NotificationService {
         dto.setSubject(notification.getSubject());
         dto.setContent(notification.getContent());
         dto.setChannel(notification.getChannel());
+        dto.setPriority(notification.getPriority());
         dto.setStatus(notification.getStatus());
         dto.setCreatedAt(notification.getCreatedAt());
 
@@ -0,0 +1,108 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.Notification.NotificationStatus;
+import com.telconova.suportsuite.repository.NotificationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores en memoria de notificaciones por estado (HU-005.4).
+ * Cada transición los ajusta al confirmarse, así las estadísticas no consultan la BD.
+ * Un GROUP BY status periódico los reconcilia con la tabla, corrigiendo lo que cambie por
+ * fuera de este nodo (otros nodos, cambios manuales) o quede a medias por un reinicio.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationStatsTracker {
+
+    private final NotificationRepository notificationRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<NotificationStatus, AtomicLong> counters = new EnumMap<>(NotificationStatus.class);
+
+    @PostConstruct
+    public void init() {
+        for (NotificationStatus status : NotificationStatus.values()) {
+            AtomicLong counter = new AtomicLong();
+            counters.put(status, counter);
+            Gauge.builder("notifications.status.count", counter, AtomicLong::get)
+                    .description("Notificaciones por estado")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    public long count(NotificationStatus status) {
+        return counters.get(status).get();
+    }
+
+    public void created(NotificationStatus status) {
+        afterCommit(() -> counters.get(status).incrementAndGet());
+    }
+
+    public void transition(NotificationStatus from, NotificationStatus to) {
+        transition(from, to, 1);
+    }
+
+    /**
+     * Registra que count notificaciones pasaron de from a to. Dentro de una transacción
+     * se aplica al confirmar, para no contar cambios que se revierten.
+     */
+    public void transition(NotificationStatus from, NotificationStatus to, long count) {
+        if (from == to || count <= 0) {
+            return;
+        }
+        afterCommit(() -> {
+            if (from != null) {
+                counters.get(from).addAndGet(-count);
+            }
+            counters.get(to).addAndGet(count);
+        });
+    }
+
+    /**
+     * Reemplaza los contadores por el conteo real de la tabla. Las transiciones que se
+     * confirman mientras corre la consulta pueden quedar contadas de más o de menos hasta
+     * la siguiente reconciliación.
+     */
+    @Scheduled(fixedDelayString = "${notifications.stats.reconcile-ms:60000}")
+    public void reconcile() {
+        Map<NotificationStatus, Long> actual = new EnumMap<>(NotificationStatus.class);
+        for (Object[] row : notificationRepository.countGroupByStatus()) {
+            actual.put((NotificationStatus) row[0], (Long) row[1]);
+        }
+
+        for (NotificationStatus status : NotificationStatus.values()) {
+            long dbCount = actual.getOrDefault(status, 0L);
+            long previous = counters.get(status).getAndSet(dbCount);
+            if (previous != dbCount) {
+                log.debug("Contador {} reconciliado: {} -> {}", status, previous, dbCount);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.Notification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Pool de workers de la cola de notificaciones (HU-005.2).
+ * Cada carril de prioridad (NotificationLanes) tiene sus propios workers, que solo toman lotes
+ * de la cola en memoria de su carril (NotificationDispatchQueue), los reclaman en la
+ * BD con SKIP LOCKED y los entregan a NotificationDispatcher. Varios workers o nodos nunca
+ * envían la misma fila. Cada recovery-sweep-ms un worker hace además un barrido de recuperación
+ * directo sobre la BD, aunque la cola en memoria tenga trabajo, para las filas que no pasaron
+ * por ella (reinicio, cola llena, leases vencidos, reintentos).
+ *
+ * Con notifications.workers.chunked=true cada lote reclamado se procesa como un chunk
+ * (NotificationChunkProcessor): su resultado se confirma en una sola transacción y el tamaño
+ * del chunk es notifications.workers.batch-size. El timer notifications.processing.batch,
+ * etiquetado por modo, permite comparar ambos caminos con la misma carga.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationWorkerPool implements SmartLifecycle {
+
+    private final NotificationService notificationService;
+    private final NotificationDispatcher dispatcher;
+    private final NotificationDispatchQueue dispatchQueue;
+    private final NotificationLanes lanes;
+    private final NotificationChunkProcessor chunkProcessor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${notifications.workers.batch-size:20}")
+    private int batchSize;
+
+    @Value("${notifications.workers.lease-seconds:300}")
+    private long leaseSeconds;
+
+    // Espera máxima en la cola en memoria antes de revisar si toca el barrido de la BD
+    @Value("${notifications.workers.idle-poll-ms:1000}")
+    private long idlePollMs;
+
+    @Value("${notifications.workers.recovery-sweep-ms:60000}")
+    private long recoverySweepMs;
+
+    @Value("${notifications.workers.chunked:false}")
+    private boolean chunked;
+
+    private final List<ExecutorService> executors = new ArrayList<>();
+    private Timer batchTimer;
+    private volatile boolean running;
+    // Próximo barrido permitido, por carril
+    private AtomicLongArray nextSweepAt;
+
+    @Override
+    public void start() {
+        running = true;
+        batchTimer = Timer.builder("notifications.processing.batch")
+                .description("Tiempo de procesamiento de un lote reclamado, de la reclamación al estado final")
+                .tag("mode", chunked ? "chunk" : "per-row")
+                .register(meterRegistry);
+        nextSweepAt = new AtomicLongArray(lanes.all().size());
+        int workerCount = 0;
+        for (NotificationLane lane : lanes.all()) {
+            ExecutorService executor = Executors.newFixedThreadPool(lane.workers(),
+                    Thread.ofPlatform().name("notification-worker-" + lane.name() + "-", 1).factory());
+            executors.add(executor);
+            workerCount += lane.workers();
+            for (int i = 0; i < lane.workers(); i++) {
+                executor.submit(() -> runWorker(lane));
+            }
+            log.info("Carril {} (prioridad hasta {}): {} workers, objetivo p99 {} ms.", lane.name(),
+                    lane.maxPriority() == Integer.MAX_VALUE ? "el final" : lane.maxPriority(),
+                    lane.workers(), lane.p99Target().toMillis());
+        }
+        log.info("Iniciados {} workers de notificaciones (lote {}, lease {} s, modo {}).",
+                workerCount, batchSize, leaseSeconds, chunked ? "chunk" : "por fila");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        executors.forEach(ExecutorService::shutdownNow);
+        try {
+            for (ExecutorService executor : executors) {
+                if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Los workers de notificaciones no terminaron a tiempo; sus leases vencerán solos.");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executors.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void runWorker(NotificationLane lane) {
+        Duration lease = Duration.ofSeconds(leaseSeconds);
+
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                List<Long> queuedIds = dispatchQueue.poll(lane, batchSize, idlePollMs);
+                processTimed(notificationService.claimByIds(queuedIds, lease));
+
+                // El barrido va por su propio intervalo, haya o no tráfico en la cola en memoria:
+                // con tráfico constante las filas que no pasan por ella (leases vencidos, cola
+                // llena, atraso de un reinicio) también tienen que salir
+                processTimed(recoverySweep(lane, lease));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Error al reclamar (BD caída, pool agotado...): se espera y se reintenta
+                log.error("Error reclamando lote de notificaciones: {}", e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void processTimed(List<Notification> batch) throws InterruptedException, ExecutionException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        process(batch);
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // El lote se envía en paralelo; se espera a que termine antes de reclamar otro
+    // para que cada worker mantenga como mucho un lote con lease activo.
+    private void process(List<Notification> batch) throws InterruptedException, ExecutionException {
+        if (chunked) {
+            chunkProcessor.process(batch);
+            return;
+        }
+        CompletableFuture.allOf(batch.stream()
+                .map(dispatcher::dispatch)
+                .toArray(CompletableFuture[]::new))
+                .get();
+    }
+
+    /**
+     * Reclama directamente de la BD las filas de las prioridades del carril, como mucho una vez
+     * por intervalo entre los workers del carril: un worker urgente nunca toma envíos masivos.
+     * Si el lote sale lleno queda más atraso, así que el siguiente barrido se permite enseguida.
+     */
+    private List<Notification> recoverySweep(NotificationLane lane, Duration lease) {
+        int slot = lane.index();
+        long now = System.currentTimeMillis();
+        long due = nextSweepAt.get(slot);
+        if (now < due || !nextSweepAt.compareAndSet(slot, due, now + recoverySweepMs)) {
+            return List.of();
+        }
+
+        List<Notification> batch = notificationService.claimBatch(lane, batchSize, lease);
+        if (batch.size() == batchSize) {
+            nextSweepAt.set(slot, now);
+        }
+        if (!batch.isEmpty()) {
+            log.info("Barrido de recuperación del carril {}: {} notificaciones reclamadas desde la BD.",
+                    lane.name(), batch.size());
+        }
+        return batch;
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(idlePollMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.telconova.suportsuite.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Condición opcional de una regla sobre los datos del evento, ya interpretada en un árbol de
+ * predicados. Ejemplos:
+ *   customer_tier == 'PRIORITY'
+ *   priority <= 2 and region in ('NORTE', 'CENTRO')
+ *   not (status == 'CERRADO' or escalated == true)
+ * Comparaciones: ==, !=, <, <=, >, >= e "in (...)", combinadas con and, or, not y paréntesis.
+ * Los literales son textos entre comillas, números, true, false y null.
+ * Se interpreta una sola vez (al guardar la regla y al cargarla en el índice) y la evaluación
+ * no crea objetos: solo consulta el mapa del evento y compara con los literales ya convertidos.
+ * Por eso los tipos deben coincidir: un número solo se compara con valores numéricos y un texto
+ * con textos (o enums, por su nombre); "!=" es la negación de "==", así que un campo ausente
+ * cumple "campo != 'x'".
+ */
+public final class RuleCondition {
+
+    /** Sin condición: la regla aplica a todos los eventos de su disparador. */
+    public static final RuleCondition ALWAYS = new RuleCondition(null, data -> true);
+
+    /** Para reglas cuya condición no se pudo interpretar: no generan notificaciones. */
+    public static final RuleCondition NEVER = new RuleCondition("<inválida>", data -> false);
+
+    private final String expression;
+    private final Node root;
+
+    private RuleCondition(String expression, Node root) {
+        this.expression = expression;
+        this.root = root;
+    }
+
+    /**
+     * Interpreta la expresión; null o vacía equivale a ALWAYS.
+     * Lanza IllegalArgumentException con la posición del error si no es válida.
+     */
+    public static RuleCondition parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            return ALWAYS;
+        }
+        Parser parser = new Parser(expression);
+        return new RuleCondition(expression.trim(), parser.parse());
+    }
+
+    public boolean matches(Map<String, ?> data) {
+        return root.test(data);
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression != null ? expression : "<siempre>";
+    }
+
+    // --- Árbol de predicados ---
+
+    private interface Node {
+        boolean test(Map<String, ?> data);
+    }
+
+    private enum Operator { EQ, NE, LT, LE, GT, GE }
+
+    private record And(Node[] terms) implements Node {
+        public boolean test(Map<String, ?> data) {
+            for (Node term : terms) {
+                if (!term.test(data)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private record Or(Node[] terms) implements Node {
+        public boolean test(Map<String, ?> data) {
+            for (Node term : terms) {
+                if (term.test(data)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private record Not(Node term) implements Node {
+        public boolean test(Map<String, ?> data) {
+            return !term.test(data);
+        }
+    }
+
+    private record TextComparison(String field, Operator operator, String literal) implements Node {
+        public boolean test(Map<String, ?> data) {
+            String text = text(data.get(field));
+            if (operator == Operator.EQ) {
+                return literal.equals(text);
+            }
+            if (operator == Operator.NE) {
+                return !literal.equals(text);
+            }
+            return text != null && ordered(operator, text.compareTo(literal));
+        }
+    }
+
+    private record NumberComparison(String field, Operator operator, double literal) implements Node {
+        public boolean test(Map<String, ?> data) {
+            if (!(data.get(field) instanceof Number number)) {
+                return operator == Operator.NE;
+            }
+            double value = number.doubleValue();
+            return switch (operator) {
+                case EQ -> value == literal;
+                case NE -> value != literal;
+                default -> ordered(operator, Double.compare(value, literal));
+            };
+        }
+    }
+
+    private record BooleanComparison(String field, boolean negated, boolean literal) implements Node {
+        public boolean test(Map<String, ?> data) {
+            boolean equal = data.get(field) instanceof Boolean value && value == literal;
+            return equal != negated;
+        }
+    }
+
+    private record NullComparison(String field, boolean negated) implements Node {
+        public boolean test(Map<String, ?> data) {
+            return (data.get(field) == null) != negated;
+        }
+    }
+
+    private record InList(String field, Set<String> texts, double[] numbers) implements Node {
+        public boolean test(Map<String, ?> data) {
+            Object value = data.get(field);
+            if (value instanceof Number number) {
+                double numeric = number.doubleValue();
+                for (double candidate : numbers) {
+                    if (candidate == numeric) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            String text = text(value);
+            return text != null && texts.contains(text);
+        }
+    }
+
+    private static String text(Object value) {
+        if (value instanceof String text) {
+            return text;
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        return null;
+    }
+
+    private static boolean ordered(Operator operator, int comparison) {
+        return switch (operator) {
+            case LT -> comparison < 0;
+            case LE -> comparison <= 0;
+            case GT -> comparison > 0;
+            case GE -> comparison >= 0;
+            default -> throw new IllegalStateException("Operador sin orden: " + operator);
+        };
+    }
+
+    // --- Intérprete (descenso recursivo) ---
+
+    private static final class Parser {
+
+        private final String source;
+        private int position;
+
+        Parser(String source) {
+            this.source = source;
+        }
+
+        Node parse() {
+            Node node = parseOr();
+            skipSpaces();
+            if (position < source.length()) {
+                throw error("se esperaba and, or o el fin de la expresión");
+            }
+            return node;
+        }
+
+        private Node parseOr() {
+            List<Node> terms = new ArrayList<>();
+            terms.add(parseAnd());
+            while (keyword("or")) {
+                terms.add(parseAnd());
+            }
+            return terms.size() == 1 ? terms.get(0) : new Or(terms.toArray(Node[]::new));
+        }
+
+        private Node parseAnd() {
+            List<Node> terms = new ArrayList<>();
+            terms.add(parseUnary());
+            while (keyword("and")) {
+                terms.add(parseUnary());
+            }
+            return terms.size() == 1 ? terms.get(0) : new And(terms.toArray(Node[]::new));
+        }
+
+        private Node parseUnary() {
+            if (keyword("not")) {
+                return new Not(parseUnary());
+            }
+            if (symbol("(")) {
+                Node inner = parseOr();
+                expect(")");
+                return inner;
+            }
+            return parseComparison();
+        }
+
+        private Node parseComparison() {
+            String field = identifier();
+            if (keyword("in")) {
+                return parseInList(field);
+            }
+            Operator operator = operator();
+            Object literal = literal();
+
+            if (literal == null) {
+                if (operator != Operator.EQ && operator != Operator.NE) {
+                    throw error("null solo admite == o !=");
+                }
+                return new NullComparison(field, operator == Operator.NE);
+            }
+            if (literal instanceof Boolean flag) {
+                if (operator != Operator.EQ && operator != Operator.NE) {
+                    throw error("true/false solo admiten == o !=");
+                }
+                return new BooleanComparison(field, operator == Operator.NE, flag);
+            }
+            if (literal instanceof Double number) {
+                return new NumberComparison(field, operator, number);
+            }
+            return new TextComparison(field, operator, (String) literal);
+        }
+
+        private Node parseInList(String field) {
+            expect("(");
+            Set<String> texts = new HashSet<>();
+            List<Double> numbers = new ArrayList<>();
+            do {
+                Object literal = literal();
+                if (literal instanceof String text) {
+                    texts.add(text);
+                } else if (literal instanceof Double number) {
+                    numbers.add(number);
+                } else {
+                    throw error("in solo admite textos y números");
+                }
+            } while (symbol(","));
+            expect(")");
+            return new InList(field, Set.copyOf(texts), numbers.stream().mapToDouble(Double::doubleValue).toArray());
+        }
+
+        private String identifier() {
+            skipSpaces();
+            int start = position;
+            while (position < source.length()
+                    && (Character.isLetterOrDigit(source.charAt(position)) || source.charAt(position) == '_')) {
+                position++;
+            }
+            if (start == position || Character.isDigit(source.charAt(start))) {
+                position = start;
+                throw error("se esperaba el nombre de un campo del evento");
+            }
+            return source.substring(start, position);
+        }
+
+        private Operator operator() {
+            skipSpaces();
+            if (symbol("==") || symbol("=")) {
+                return Operator.EQ;
+            }
+            if (symbol("!=") || symbol("<>")) {
+                return Operator.NE;
+            }
+            if (symbol("<=")) {
+                return Operator.LE;
+            }
+            if (symbol(">=")) {
+                return Operator.GE;
+            }
+            if (symbol("<")) {
+                return Operator.LT;
+            }
+            if (symbol(">")) {
+                return Operator.GT;
+            }
+            throw error("se esperaba un operador de comparación o in");
+        }
+
+        // String, Double, Boolean o null
+        private Object literal() {
+            skipSpaces();
+            if (position >= source.length()) {
+                throw error("se esperaba un valor");
+            }
+            char first = source.charAt(position);
+            if (first == '\'' || first == '"') {
+                int end = source.indexOf(first, position + 1);
+                if (end < 0) {
+                    throw error("texto sin cerrar");
+                }
+                String text = source.substring(position + 1, end);
+                position = end + 1;
+                return text;
+            }
+            if (first == '-' || Character.isDigit(first)) {
+                int start = position++;
+                while (position < source.length()
+                        && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+                    position++;
+                }
+                try {
+                    return Double.parseDouble(source.substring(start, position));
+                } catch (NumberFormatException e) {
+                    position = start;
+                    throw error("número no válido");
+                }
+            }
+            if (keyword("true")) {
+                return Boolean.TRUE;
+            }
+            if (keyword("false")) {
+                return Boolean.FALSE;
+            }
+            if (keyword("null")) {
+                return null;
+            }
+            throw error("se esperaba un texto entre comillas, un número, true, false o null");
+        }
+
+        private boolean keyword(String word) {
+            skipSpaces();
+            int end = position + word.length();
+            if (end > source.length() || !source.substring(position, end).toLowerCase(Locale.ROOT).equals(word)) {
+                return false;
+            }
+            if (end < source.length()
+                    && (Character.isLetterOrDigit(source.charAt(end)) || source.charAt(end) == '_')) {
+                return false;
+            }
+            position = end;
+            return true;
+        }
+
+        private boolean symbol(String symbol) {
+            skipSpaces();
+            if (source.startsWith(symbol, position)) {
+                position += symbol.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String symbol) {
+            if (!symbol(symbol)) {
+                throw error("se esperaba '" + symbol + "'");
+            }
+        }
+
+        private void skipSpaces() {
+            while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(
+                    "Condición no válida en la posición " + (position + 1) + ": " + message);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.telconova.suportsuite.service;
 
+import com.telconova.suportsuite.DTO.RosterUser;
 import com.telconova.suportsuite.service.AuditService;
 import com.telconova.suportsuite.entity.User;
 import com.telconova.suportsuite.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // Importación más simple
 import java.time.LocalDateTime;
@@ -21,6 +23,9 @@ public class SecurityPersistenceServiceImpl implements ISecurityPersistenceServi
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // ⭐️ CAMBIO: Se elimina REQUIRES_NEW para evitar solicitar una segunda conexión.
     @Override
     @Transactional
@@ -37,6 +42,7 @@ public class SecurityPersistenceServiceImpl implements ISecurityPersistenceServi
             // 2. Persistir el bloqueo y forzar el commit.
             // (userRepository.save(user) + userRepository.flush() es correcto)
             userRepository.saveAndFlush(user); // Alternativa más concisa y que hace lo mismo
+            publishUserChanged(user);
 
             // 3. Registrar auditoría
             auditService.recordEvent(user.getId(), "ACCOUNT_LOCKED", "Máx. intentos fallidos alcanzado. Bloqueado.", ipAddress);
@@ -55,6 +61,7 @@ public class SecurityPersistenceServiceImpl implements ISecurityPersistenceServi
     @Override
     @Transactional
     public void handleSuccessfulLogin(User user, String ipAddress) {
+        boolean wasLocked = user.isLocked();
         user.setFailedLoginAttempts(0);
         user.setLastSuccessfulLogin(LocalDateTime.now());
         user.setLockoutEndTime(null);
@@ -62,6 +69,9 @@ public class SecurityPersistenceServiceImpl implements ISecurityPersistenceServi
 
         // Forzar el commit inmediato.
         userRepository.saveAndFlush(user); // Alternativa más concisa
+        if (wasLocked) {
+            publishUserChanged(user);
+        }
         auditService.recordEvent(user.getId(), "LOGIN_SUCCESS", "Acceso exitoso.", ipAddress);
     }
 
@@ -79,8 +89,15 @@ public class SecurityPersistenceServiceImpl implements ISecurityPersistenceServi
         //userRepository.saveAndFlush(user); // Alternativa más concisa
 
         userRepository.save(user);
+        publishUserChanged(user);
 
         // 3. Registrar auditoría
         auditService.recordEvent(user.getId(), "ACCOUNT_UNLOCKED_AUTO", "Cuenta desbloqueada automáticamente por tiempo.", ipAddress);
     }
-}
\ No newline at end of file
+
+    // El roster de público objetivo excluye las cuentas bloqueadas con "status": "active"
+    private void publishUserChanged(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(new RosterUser(user.getId(), user.getUsername(),
+                user.getRoles(), user.isLocked(), user.getLockoutEndTime())));
+    }
+}
@@ -0,0 +1,36 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.entity.Notification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resultado de un envío sin persistir, para cerrar el lote completo en una sola transacción.
+ */
+public record SendOutcome(Notification notification, Result result, String errorMessage, LocalDateTime retryAt) {
+
+    public enum Result {
+        ENVIADA,
+        FALLIDA,
+        // Canal saturado: no se intentó, vuelve a la cola sin contar como fallo
+        RECHAZADA,
+        // Límite de tasa: no se intentó, se reprograma para retryAt sin contar como fallo
+        APLAZADA
+    }
+
+    public static SendOutcome sent(Notification notification) {
+        return new SendOutcome(notification, Result.ENVIADA, null, null);
+    }
+
+    public static SendOutcome failed(Notification notification, String errorMessage) {
+        return new SendOutcome(notification, Result.FALLIDA, errorMessage, null);
+    }
+
+    public static SendOutcome rejected(Notification notification) {
+        return new SendOutcome(notification, Result.RECHAZADA, null, null);
+    }
+
+    public static SendOutcome deferred(Notification notification, LocalDateTime retryAt) {
+        return new SendOutcome(notification, Result.APLAZADA, null, retryAt);
+    }
+}
@@ -0,0 +1,50 @@
+package com.telconova.suportsuite.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket en un solo AtomicLong (algoritmo GCRA): guarda el instante teórico en que el
+ * cubo vuelve a estar lleno. Tomar un permiso es un CAS, sin locks, y un cubo cuyo instante
+ * ya pasó está lleno, así que se puede descartar sin perder nada.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    // Adelanto máximo permitido sobre el reloj: la ráfaga menos el permiso actual
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.intervalNanos = Math.max(1, Math.round(1_000_000_000d / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1L);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Toma un permiso. Devuelve 0 si lo obtuvo o, si no, los nanosegundos hasta que haya uno.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long wait = next - nowNanos - toleranceNanos - intervalNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Devuelve un permiso tomado que finalmente no se usó.
+     */
+    public void refund() {
+        fullAt.addAndGet(-intervalNanos);
+    }
+
+    public boolean isIdle(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
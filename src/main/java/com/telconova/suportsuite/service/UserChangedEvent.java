@@ -0,0 +1,10 @@
+package com.telconova.suportsuite.service;
+
+import com.telconova.suportsuite.DTO.RosterUser;
+
+/**
+ * Se publica cuando cambia el estado de un usuario relevante para el público objetivo
+ * (bloqueo/desbloqueo). El roster aplica el cambio al confirmarse la transacción.
+ */
+public record UserChangedEvent(RosterUser user) {
+}
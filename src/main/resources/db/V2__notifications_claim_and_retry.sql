@@ -0,0 +1,13 @@
+-- Cola de notificaciones: lease de los workers, próximo intento de los reintentos e índice
+-- para leer la cola por clave (priority, created_at, id).
+-- Aplicar en orden (V2, V3, ...) antes de desplegar: la app arranca con ddl-auto=validate.
+
+-- Reclamo por lotes con SKIP LOCKED: hasta cuándo es del worker que la reclamó
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP NULL;
+
+-- Backoff exponencial de los reintentos: antes de esta fecha no se vuelve a reclamar
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP NULL;
+
+-- Páginas de la cola y reclamo por prioridad sin ordenar toda la tabla
+CREATE INDEX IF NOT EXISTS idx_notifications_status_priority_created
+    ON notifications (status, priority, created_at, id);
@@ -0,0 +1,10 @@
+-- Inserción por lotes: Notification usa notifications_id_seq con allocationSize = 50 (optimizador
+-- pooled de Hibernate), así que el incremento de la secuencia debe ser 50. Con el incremento
+-- en 1 la validación del esquema falla al arrancar y, si se relaja, se repiten ids.
+
+-- La secuencia parte como mínimo del id más alto: el primer bloque pooled es (valor - 49 .. valor)
+SELECT setval('notifications_id_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 0) FROM notifications),
+                       (SELECT last_value FROM notifications_id_seq)) + 50);
+
+ALTER SEQUENCE notifications_id_seq INCREMENT BY 50;
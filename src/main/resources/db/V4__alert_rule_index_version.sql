@@ -0,0 +1,8 @@
+-- Índice de reglas en memoria: cada cambio de reglas o plantillas incrementa la versión y los
+-- demás nodos recargan el índice al verla cambiar. Sin la tabla, cada nodo solo ve sus cambios.
+CREATE TABLE IF NOT EXISTS rule_index_version (
+    id      INT PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO rule_index_version (id, version) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
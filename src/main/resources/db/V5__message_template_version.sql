@@ -0,0 +1,2 @@
+-- Plantillas compiladas una vez: la versión (@Version) invalida la compilada en caché al editar
+ALTER TABLE message_template ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+-- Ventana de idempotencia de eventos de alerta entre nodos. Sin la tabla, los duplicados solo
+-- se suprimen dentro de cada nodo.
+CREATE TABLE IF NOT EXISTS processed_events (
+    event_key    VARCHAR(255) PRIMARY KEY,
+    processed_at TIMESTAMP    NOT NULL
+);
+
+-- Purga periódica de las claves vencidas (DELETE ... WHERE processed_at < ?)
+CREATE INDEX IF NOT EXISTS idx_processed_events_processed_at ON processed_events (processed_at);
@@ -0,0 +1,4 @@
+-- Reglas de alerta: ventana de agrupación en resúmenes (NULL o 0 = sin agrupar) y expresión
+-- de condición opcional (NULL = la regla aplica a todo evento de su disparador).
+ALTER TABLE alert_rules ADD COLUMN IF NOT EXISTS coalesce_window_seconds INTEGER;
+ALTER TABLE alert_rules ADD COLUMN IF NOT EXISTS condition_expression TEXT;
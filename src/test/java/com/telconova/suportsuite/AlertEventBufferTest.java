@@ -0,0 +1,93 @@
+package com.telconova.suportsuite;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telconova.suportsuite.entity.EventTrigger;
+import com.telconova.suportsuite.entity.NotificationChannel;
+import com.telconova.suportsuite.service.AlertEventBuffer;
+import com.telconova.suportsuite.service.AlertEventBuffer.OverflowPolicy;
+import com.telconova.suportsuite.service.AlertEventEvaluator;
+import com.telconova.suportsuite.service.AlertRuleIndex;
+import com.telconova.suportsuite.service.CompiledRule;
+import com.telconova.suportsuite.service.EventDeduplicator;
+import com.telconova.suportsuite.service.NotificationLanes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AlertEventBufferTest {
+
+    @TempDir
+    Path spillDir;
+
+    private final AlertRuleIndex alertRuleIndex = mock(AlertRuleIndex.class);
+    private final AlertEventEvaluator evaluator = mock(AlertEventEvaluator.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Debe volcar a disco, y no evaluar en el hilo productor, el evento que no entra tras esperar (AAA)")
+    void testSubmit_BlockTimeoutSpillsInsteadOfEvaluatingInline() throws Exception {
+        // ARRANGE
+        AlertEventBuffer buffer = newBuffer(1, 0);
+        buffer.start();
+
+        // ACT
+        for (int i = 0; i < 3; i++) {
+            buffer.submit(EventTrigger.values()[0], Map.of("ticket_number", "T-" + i), null);
+        }
+
+        // ASSERT
+        verify(evaluator, never()).evaluate(any(), any());
+        assertEquals(1, buffer.size());
+        assertEquals(2, Files.readAllLines(spillDir.resolve("alert-events.jsonl")).size());
+        assertEquals(0, meterRegistry.counter("alerts.events.dropped").count());
+    }
+
+    @Test
+    @DisplayName("Debe despertar al evaluador ocioso al encolar un evento y terminar al apagar (AAA)")
+    void testSubmit_WakesIdleEvaluator() {
+        // ARRANGE
+        AlertEventBuffer buffer = newBuffer(10, 1);
+        buffer.start();
+
+        // ACT
+        buffer.submit(EventTrigger.values()[0], Map.of("ticket_number", "T-1"), null);
+
+        // ASSERT
+        verify(evaluator, timeout(500)).evaluate(any(), any());
+        long start = System.nanoTime();
+        buffer.stop();
+        assertEquals(0, buffer.size());
+        assertTrue(System.nanoTime() - start < 500_000_000L, "El apagado esperó al respaldo de 1 s");
+    }
+
+    private AlertEventBuffer newBuffer(int capacity, int evaluators) {
+        CompiledRule rule = new CompiledRule(1L, "regla", EventTrigger.values()[0], NotificationChannel.EMAIL,
+                1, "asunto", null, null, null, 0);
+        when(alertRuleIndex.rulesFor(any())).thenReturn(new CompiledRule[]{rule});
+        NotificationLanes lanes = new NotificationLanes(new MockEnvironment(), meterRegistry);
+        AlertEventBuffer buffer = new AlertEventBuffer(alertRuleIndex, evaluator, mock(EventDeduplicator.class),
+                lanes, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(buffer, "capacity", capacity);
+        ReflectionTestUtils.setField(buffer, "overflowPolicy", OverflowPolicy.BLOCK);
+        ReflectionTestUtils.setField(buffer, "blockTimeoutMs", 20L);
+        ReflectionTestUtils.setField(buffer, "evaluatorCount", evaluators);
+        ReflectionTestUtils.setField(buffer, "spillDir", spillDir);
+        return buffer;
+    }
+}
@@ -0,0 +1,39 @@
+package com.telconova.suportsuite;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.telconova.suportsuite.service.AudienceCriteria;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AudienceCriteriaTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Debe aceptar una lista directa de usuarios y rechazar criterios desconocidos (AAA)")
+    void testParse_AcceptsUserListAndRejectsUnknownCriteria() {
+        // ARRANGE
+        String userList = "[\"ana\", \"luis\"]";
+        String criteria = "{\"roles\": [\"admin\"], \"status\": \"active\"}";
+
+        // ACT
+        AudienceCriteria fromList = AudienceCriteria.parse(userList, objectMapper);
+        AudienceCriteria fromObject = AudienceCriteria.parse(criteria, objectMapper);
+
+        // ASSERT
+        assertTrue(fromList.valid());
+        assertEquals(Set.of("ana", "luis"), fromList.usernames());
+        assertEquals(Set.of("ADMIN"), fromObject.roles());
+        assertTrue(fromObject.activeOnly());
+        assertThrows(IllegalArgumentException.class,
+                () -> AudienceCriteria.parse("{\"grupo\": \"soporte\"}", objectMapper));
+        assertThrows(IllegalArgumentException.class, () -> AudienceCriteria.parse("\"ana\"", objectMapper));
+        assertThrows(IllegalArgumentException.class, () -> AudienceCriteria.parse("{roles", objectMapper));
+    }
+}
@@ -0,0 +1,77 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.DTO.RosterUser;
+import com.telconova.suportsuite.repository.UserRepository;
+import com.telconova.suportsuite.service.AudienceCriteria;
+import com.telconova.suportsuite.service.AudienceRoster;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AudienceRosterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private AudienceRoster roster;
+
+    @BeforeEach
+    void setUp() {
+        roster = new AudienceRoster(userRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(roster, "pageSize", 1000);
+        when(userRepository.findRosterPageAfter(eq(0L), any())).thenReturn(List.of(
+                new RosterUser(1L, "ana", "ADMIN", false, null),
+                new RosterUser(2L, "luis", "admin, soporte", false, null),
+                new RosterUser(3L, "eva", "SOPORTE", true, LocalDateTime.now().plusMinutes(5)),
+                new RosterUser(4L, "juan", "TECNICO", false, null)));
+        roster.resync();
+    }
+
+    @Test
+    @DisplayName("Debe resolver roles y usuarios listados sin duplicados, por bloques (AAA)")
+    void testForEachChunk_UnionWithoutDuplicates() {
+        // ARRANGE
+        AudienceCriteria criteria = AudienceCriteria.of(Map.of(
+                "roles", List.of("admin", "SOPORTE"),
+                "users", List.of("luis", "juan", "desconocido")));
+        List<List<String>> chunks = new ArrayList<>();
+
+        // ACT
+        long delivered = roster.forEachChunk(criteria, 2, chunk -> chunks.add(List.copyOf(chunk)));
+
+        // ASSERT
+        assertEquals(4, delivered);
+        assertEquals(2, chunks.size());
+        assertEquals(4, chunks.stream().flatMap(List::stream).distinct().count());
+    }
+
+    @Test
+    @DisplayName("Debe excluir cuentas bloqueadas con status active (AAA)")
+    void testForEachChunk_ActiveOnly() {
+        // ARRANGE
+        AudienceCriteria criteria = AudienceCriteria.of(Map.of("role", "SOPORTE", "status", "active"));
+        List<String> recipients = new ArrayList<>();
+
+        // ACT
+        roster.forEachChunk(criteria, 500, recipients::addAll);
+
+        // ASSERT
+        assertEquals(List.of("luis"), recipients);
+    }
+}
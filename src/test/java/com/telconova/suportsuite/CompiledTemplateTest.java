@@ -0,0 +1,49 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.service.CompiledTemplate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompiledTemplateTest {
+
+    @Test
+    @DisplayName("Debe renderizar las variables en una pasada igual que el reemplazo anterior (AAA)")
+    void testRender_ReplacesVariables() {
+        // ARRANGE
+        CompiledTemplate template = CompiledTemplate.compile(
+                "Ticket {ticketId}: {title}. Asignado a {assignee} ({ticketId})");
+        Map<String, Object> data = new HashMap<>();
+        data.put("ticketId", 42L);
+        data.put("title", "Caída de red");
+        data.put("assignee", null);
+
+        // ACT
+        String content = template.render(data);
+
+        // ASSERT
+        assertEquals("Ticket 42: Caída de red. Asignado a  (42)", content);
+    }
+
+    @Test
+    @DisplayName("Debe conservar y reportar las variables que el evento no trae (AAA)")
+    void testMissingVariables_KeepsPlaceholders() {
+        // ARRANGE
+        CompiledTemplate template = CompiledTemplate.compile("{a} y {b} y {a} {c");
+        Map<String, Object> data = Map.of("b", "dos");
+
+        // ACT
+        String content = template.render(data);
+        List<String> missing = template.missingVariables(data);
+
+        // ASSERT
+        assertEquals("{a} y dos y {a} {c", content);
+        assertEquals(List.of("a"), missing);
+        assertEquals(List.of("a", "b", "a"), template.variables());
+    }
+}
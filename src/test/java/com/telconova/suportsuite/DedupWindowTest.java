@@ -0,0 +1,64 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.service.DedupWindow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DedupWindowTest {
+
+    @Test
+    @DisplayName("Debe suprimir la clave repetida dentro de la ventana y aceptarla al vencer (AAA)")
+    void testAdd_SuppressesWithinWindow() {
+        // ARRANGE
+        DedupWindow window = new DedupWindow(10_000, 10, 1_000);
+
+        // ACT
+        boolean first = window.add("SLA_WARNING:T-1", 0);
+        boolean repeated = window.add("SLA_WARNING:T-1", 9_000);
+        boolean afterWindow = window.add("SLA_WARNING:T-1", 11_000);
+
+        // ASSERT
+        assertTrue(first);
+        assertFalse(repeated);
+        assertTrue(afterWindow);
+    }
+
+    @Test
+    @DisplayName("Debe dejar de registrar claves al alcanzar el máximo (AAA)")
+    void testAdd_BoundedByMaxKeys() {
+        // ARRANGE
+        DedupWindow window = new DedupWindow(10_000, 10, 2);
+        window.add("a", 0);
+        window.add("b", 0);
+
+        // ACT
+        boolean overCap = window.add("c", 0);
+        boolean repeatedOverCap = window.add("c", 0);
+
+        // ASSERT
+        assertTrue(overCap);
+        assertTrue(repeatedOverCap);
+        assertEquals(2, window.size(0));
+    }
+
+    @Test
+    @DisplayName("Debe aceptar de nuevo una clave liberada porque su evento no se procesó (AAA)")
+    void testRemove_AllowsRetryOfReleasedKey() {
+        // ARRANGE
+        DedupWindow window = new DedupWindow(10_000, 10, 1_000);
+        window.add("SLA_WARNING:T-1", 0);
+
+        // ACT
+        window.remove("SLA_WARNING:T-1");
+        boolean retry = window.add("SLA_WARNING:T-1", 1_000);
+        boolean repeated = window.add("SLA_WARNING:T-1", 2_000);
+
+        // ASSERT
+        assertTrue(retry);
+        assertFalse(repeated);
+    }
+}
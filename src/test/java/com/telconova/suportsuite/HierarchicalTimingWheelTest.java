@@ -0,0 +1,57 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.service.HierarchicalTimingWheel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    @DisplayName("No debe disparar antes de la fecha límite ni más de un tick después (AAA)")
+    void testAdvanceTo_FiresWithinOneTickAfterDeadline() {
+        // ARRANGE
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 8, 3, START);
+        wheel.schedule("corto", START + 2_500);
+        wheel.schedule("medio", START + 20_000);
+        wheel.schedule("largo", START + 500_000);
+
+        // ACT + ASSERT
+        assertTrue(wheel.advanceTo(START + 2_400).isEmpty());
+        assertEquals(List.of("corto"), wheel.advanceTo(START + 3_500));
+        assertTrue(wheel.advanceTo(START + 19_999).isEmpty());
+        assertEquals(List.of("medio"), wheel.advanceTo(START + 21_000));
+        assertTrue(wheel.advanceTo(START + 499_000).isEmpty());
+        assertEquals(List.of("largo"), wheel.advanceTo(START + 501_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Debe devolver de inmediato lo vencido y manejar fechas más allá del último nivel (AAA)")
+    void testSchedule_OverdueAndBeyondTopLevel() {
+        // ARRANGE
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(1000, 4, 2, START);
+        wheel.schedule(1, START - 5_000);
+        // El último nivel cubre 16 s: 100 s obliga a dar varias vueltas
+        wheel.schedule(2, START + 100_000);
+
+        // ACT
+        List<Integer> first = wheel.advanceTo(START);
+        List<Integer> fired = new ArrayList<>();
+        for (long now = START; now <= START + 99_000; now += 1_000) {
+            fired.addAll(wheel.advanceTo(now));
+        }
+        List<Integer> last = wheel.advanceTo(START + 101_000);
+
+        // ASSERT
+        assertEquals(List.of(1), first);
+        assertTrue(fired.isEmpty());
+        assertEquals(List.of(2), last);
+    }
+}
@@ -0,0 +1,80 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.entity.User;
+import com.telconova.suportsuite.security.JwtTokenProvider;
+import com.telconova.suportsuite.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JwtTokenProviderTest {
+
+    private VerifiedTokenCache cache;
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        tokenProvider = new JwtTokenProvider(cache);
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                "TU7NUEVA7CLAVE7SECRETA7DEBE7SER7MUCHO7MAS7LARGA7Y7COMPLEJA7PARA7HS5127Y7CUMPLIR7CON75127BITS");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMinutes", 30L);
+        tokenProvider.init();
+    }
+
+    @Test
+    @DisplayName("Debe verificar el token una vez y servir los Claims desde la caché; un token alterado no es válido (AAA)")
+    void testGetValidClaims_VerifiesOnceAndCaches() {
+        // ARRANGE
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("ana");
+        user.setRoles("ADMIN");
+        String token = tokenProvider.generateToken(user);
+        String tampered = token.substring(0, token.length() - 4)
+                + (token.endsWith("AAAA") ? "BBBB" : "AAAA");
+
+        // ACT
+        Claims first = tokenProvider.getValidClaims(token);
+        Claims second = tokenProvider.getValidClaims(token);
+        Claims invalid = tokenProvider.getValidClaims(tampered);
+
+        // ASSERT
+        assertNotNull(first);
+        assertEquals("ana", first.getSubject());
+        assertEquals("ADMIN", first.get("roles"));
+        assertSame(first, second);
+        assertNull(invalid);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("No debe servir desde la caché un token ya expirado (AAA)")
+    void testCache_ExpiredEntryIsNotServed() {
+        // ARRANGE
+        Claims claims = new DefaultClaims();
+        claims.setSubject("ana");
+        claims.setExpiration(new Date(10_000));
+        cache.put("token", claims, 5_000);
+
+        // ACT
+        Claims beforeExpiry = cache.get("token", 9_999);
+        Claims afterExpiry = cache.get("token", 10_000);
+
+        // ASSERT
+        assertSame(claims, beforeExpiry);
+        assertNull(afterExpiry);
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,80 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.service.MpmcRingBuffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpmcRingBufferTest {
+
+    @Test
+    @DisplayName("Debe respetar el orden FIFO y rechazar al llenarse (AAA)")
+    void testOfferPoll_FifoAndBounded() {
+        // ARRANGE
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(4);
+
+        // ACT
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        boolean acceptedWhenFull = ring.offer(99);
+
+        // ASSERT
+        assertFalse(acceptedWhenFull);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertNull(ring.poll());
+    }
+
+    @Test
+    @DisplayName("Debe entregar cada elemento una sola vez con varios productores y consumidores (AAA)")
+    void testConcurrentProducersConsumers_NoLossNoDuplicates() throws InterruptedException {
+        // ARRANGE
+        MpmcRingBuffer<Integer> ring = new MpmcRingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 10_000;
+        Set<Integer> consumed = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+
+        // ACT
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+        for (int c = 0; c < 3; c++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                while (consumed.size() < producers * perProducer) {
+                    Integer value = ring.poll();
+                    if (value != null && !consumed.add(value)) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        // ASSERT
+        assertEquals(producers * perProducer, consumed.size());
+        assertEquals(0, duplicates.get());
+    }
+}
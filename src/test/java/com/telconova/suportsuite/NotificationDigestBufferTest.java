@@ -0,0 +1,91 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.entity.EventTrigger;
+import com.telconova.suportsuite.entity.NotificationChannel;
+import com.telconova.suportsuite.service.AudienceCriteria;
+import com.telconova.suportsuite.service.CompiledRule;
+import com.telconova.suportsuite.service.CompiledTemplate;
+import com.telconova.suportsuite.service.NotificationDigestBuffer;
+import com.telconova.suportsuite.service.NotificationService;
+import com.telconova.suportsuite.service.RuleCondition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDigestBufferTest {
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Test
+    @DisplayName("Debe agrupar las notificaciones de un destinatario en un solo resumen (AAA)")
+    void testFlush_CoalescesPerRecipient() {
+        // ARRANGE
+        NotificationDigestBuffer buffer = new NotificationDigestBuffer(notificationService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(buffer, "maxItems", 20);
+        CompiledRule rule = new CompiledRule(7L, "SLA", EventTrigger.SLA_WARNING, NotificationChannel.EMAIL, 2,
+                "Aviso SLA", CompiledTemplate.compile("SLA {ticket}"), AudienceCriteria.of(Map.of("role", "ADMIN")), RuleCondition.ALWAYS,
+                60_000);
+        buffer.add(rule, "ana", "SLA T-1");
+        buffer.add(rule, "ana", "SLA T-2");
+        buffer.add(rule, "ana", "SLA T-1");
+        buffer.add(rule, "luis", "SLA T-1");
+
+        // ACT
+        buffer.flushAll();
+
+        // ASSERT
+        ArgumentCaptor<List<String>> recipients = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<String>> contents = ArgumentCaptor.forClass(List.class);
+        verify(notificationService).fanOut(eq(rule), recipients.capture(), contents.capture());
+        assertEquals(List.of("ana", "luis"), recipients.getValue().stream().sorted().toList());
+        int ana = recipients.getValue().indexOf("ana");
+        assertTrue(contents.getValue().get(ana).startsWith("3 notificaciones agrupadas"));
+        assertEquals("SLA T-1", contents.getValue().get(1 - ana));
+        assertEquals(0, buffer.pendingCount());
+    }
+
+    @Test
+    @DisplayName("Debe reintentar un resumen cuyo envío falló en lugar de perderlo (AAA)")
+    void testFlushAll_RequeuesFailedDigest() {
+        // ARRANGE
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationDigestBuffer buffer = new NotificationDigestBuffer(notificationService, meterRegistry);
+        ReflectionTestUtils.setField(buffer, "maxItems", 20);
+        ReflectionTestUtils.setField(buffer, "maxAttempts", 3);
+        ReflectionTestUtils.setField(buffer, "retryBackoffMs", 0L);
+        CompiledRule rule = new CompiledRule(7L, "SLA", EventTrigger.SLA_WARNING, NotificationChannel.EMAIL, 2,
+                "Aviso SLA", CompiledTemplate.compile("SLA {ticket}"), AudienceCriteria.of(Map.of("role", "ADMIN")), RuleCondition.ALWAYS,
+                60_000);
+        buffer.add(rule, "ana", "SLA T-1");
+        when(notificationService.fanOut(eq(rule), eq(List.of("ana")), any()))
+                .thenThrow(new IllegalStateException("BD caída"))
+                .thenReturn(1);
+
+        // ACT
+        buffer.flushAll();
+
+        // ASSERT
+        verify(notificationService, times(2)).fanOut(eq(rule), eq(List.of("ana")), eq(List.of("SLA T-1")));
+        assertEquals(1.0, meterRegistry.counter("alerts.digest.flush-failures").count());
+        assertEquals(0.0, meterRegistry.counter("alerts.digest.dropped").count());
+        assertEquals(0, buffer.pendingCount());
+    }
+}
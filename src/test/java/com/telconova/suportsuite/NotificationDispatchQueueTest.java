@@ -0,0 +1,111 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.service.NotificationDispatchQueue;
+import com.telconova.suportsuite.service.NotificationLane;
+import com.telconova.suportsuite.service.NotificationLanes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationDispatchQueueTest {
+
+    private NotificationLanes lanes;
+    private NotificationDispatchQueue dispatchQueue;
+
+    @BeforeEach
+    void setUp() {
+        // Sin configuración: un solo carril para todas las prioridades, envejecimiento de 5 min
+        lanes = new NotificationLanes(new MockEnvironment(), new SimpleMeterRegistry());
+        dispatchQueue = new NotificationDispatchQueue(new SimpleMeterRegistry(), lanes);
+        ReflectionTestUtils.setField(dispatchQueue, "capacity", 3);
+    }
+
+    @Test
+    @DisplayName("Debe entregar por prioridad y luego por antigüedad (AAA)")
+    void testPoll_OrdersByPriorityThenCreatedAt() throws InterruptedException {
+        // ARRANGE
+        LocalDateTime now = LocalDateTime.now();
+        dispatchQueue.offer(1L, 5, now.minusMinutes(10));
+        dispatchQueue.offer(2L, 1, now);
+        dispatchQueue.offer(3L, 1, now.minusMinutes(1));
+
+        // ACT
+        List<Long> ids = dispatchQueue.poll(lanes.forPriority(1), 10, 10);
+
+        // ASSERT
+        assertEquals(List.of(3L, 2L, 1L), ids);
+        assertEquals(0, dispatchQueue.size());
+    }
+
+    @Test
+    @DisplayName("No debe encolar duplicados ni superar la capacidad (AAA)")
+    void testOffer_RejectsDuplicatesAndOverflow() {
+        // ARRANGE
+        LocalDateTime now = LocalDateTime.now();
+
+        // ACT
+        boolean first = dispatchQueue.offer(1L, 5, now);
+        boolean duplicate = dispatchQueue.offer(1L, 5, now);
+        dispatchQueue.offer(2L, 5, now);
+        dispatchQueue.offer(3L, 5, now);
+        boolean overflow = dispatchQueue.offer(4L, 1, now);
+
+        // ASSERT
+        assertTrue(first);
+        assertFalse(duplicate);
+        assertFalse(overflow);
+        assertEquals(3, dispatchQueue.size());
+    }
+
+    @Test
+    @DisplayName("Una notificación que esperó lo suficiente debe pasar delante de una más urgente (AAA)")
+    void testPoll_AgedNotificationOvertakesHigherPriority() throws InterruptedException {
+        // ARRANGE: 4 niveles de diferencia equivalen a 20 min de espera
+        LocalDateTime now = LocalDateTime.now();
+        dispatchQueue.offer(1L, 1, now);
+        dispatchQueue.offer(2L, 5, now.minusMinutes(30));
+
+        // ACT
+        List<Long> ids = dispatchQueue.poll(lanes.forPriority(1), 10, 10);
+
+        // ASSERT
+        assertEquals(List.of(2L, 1L), ids);
+    }
+
+    @Test
+    @DisplayName("Cada carril debe recibir solo las prioridades que le corresponden (AAA)")
+    void testOffer_RoutesByLane() throws InterruptedException {
+        // ARRANGE
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("notifications.lanes.names", "masiva,urgente")
+                .withProperty("notifications.lanes.urgente.max-priority", "2");
+        lanes = new NotificationLanes(environment, new SimpleMeterRegistry());
+        dispatchQueue = new NotificationDispatchQueue(new SimpleMeterRegistry(), lanes);
+        ReflectionTestUtils.setField(dispatchQueue, "capacity", 10);
+        LocalDateTime now = LocalDateTime.now();
+        NotificationLane urgent = lanes.forPriority(1);
+        NotificationLane bulk = lanes.forPriority(9);
+
+        // ACT
+        dispatchQueue.offer(1L, 5, now.minusHours(1));
+        dispatchQueue.offer(2L, 1, now);
+
+        // ASSERT
+        assertEquals("urgente", urgent.name());
+        assertEquals("masiva", bulk.name());
+        // Rangos que usa el barrido de recuperación de cada carril
+        assertEquals(2, urgent.maxPriority());
+        assertEquals(3, bulk.minPriority());
+        assertEquals(Integer.MAX_VALUE, bulk.maxPriority());
+        assertEquals(List.of(2L), dispatchQueue.poll(urgent, 10, 10));
+        assertEquals(List.of(1L), dispatchQueue.poll(bulk, 10, 10));
+    }
+}
@@ -0,0 +1,93 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.entity.Notification.NotificationStatus;
+import com.telconova.suportsuite.service.NotificationHistoryAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationHistoryAppenderTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationHistoryAppender appender;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        appender = new NotificationHistoryAppender(jdbcTemplate, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(appender, "bufferCapacity", 100);
+        ReflectionTestUtils.setField(appender, "batchSize", 10);
+        ReflectionTestUtils.setField(appender, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(appender, "writeAttempts", 3);
+        ReflectionTestUtils.setField(appender, "retryBackoffMs", 1L);
+    }
+
+    @Test
+    @DisplayName("Debe reintentar la escritura fallida del historial sin descartar registros (AAA)")
+    @SuppressWarnings("unchecked")
+    void testWrite_RetriesTransientFailure() throws InterruptedException {
+        // ARRANGE
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("conexión caída"))
+                .thenThrow(new DataAccessResourceFailureException("conexión caída"))
+                .thenReturn(new int[][]{{1}});
+        appender.start();
+
+        // ACT
+        appender.append(1L, NotificationStatus.ENVIADO, "Enviada", null);
+        appender.shutdown();
+
+        // ASSERT
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1.0, meterRegistry.counter("notifications.history.records").count());
+        assertEquals(0.0, meterRegistry.counter("notifications.history.dropped").count());
+    }
+
+    @Test
+    @DisplayName("Debe contar como descartados los registros que no se pudieron escribir al apagar (AAA)")
+    @SuppressWarnings("unchecked")
+    void testShutdown_CountsDroppedRecords() throws InterruptedException {
+        // ARRANGE
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("BD caída"));
+        appender.start();
+
+        // ACT
+        appender.append(1L, NotificationStatus.ENVIADO, "Enviada", null);
+        appender.append(2L, NotificationStatus.FALLIDA, "Fallida", "timeout");
+        appender.shutdown();
+
+        // ASSERT
+        assertEquals(2.0, meterRegistry.counter("notifications.history.dropped").count());
+        assertEquals(0.0, meterRegistry.counter("notifications.history.records").count());
+    }
+}
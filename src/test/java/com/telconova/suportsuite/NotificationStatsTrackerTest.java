@@ -0,0 +1,67 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.entity.Notification.NotificationStatus;
+import com.telconova.suportsuite.repository.NotificationRepository;
+import com.telconova.suportsuite.service.NotificationStatsTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationStatsTrackerTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    private NotificationStatsTracker statsTracker;
+
+    @BeforeEach
+    void setUp() {
+        statsTracker = new NotificationStatsTracker(notificationRepository, new SimpleMeterRegistry());
+        statsTracker.init();
+    }
+
+    @Test
+    @DisplayName("Debe mover los contadores en cada transición sin consultar la BD (AAA)")
+    void testTransition_UpdatesCounters() {
+        // ARRANGE
+        statsTracker.created(NotificationStatus.PENDIENTE);
+        statsTracker.created(NotificationStatus.PENDIENTE);
+
+        // ACT
+        statsTracker.transition(NotificationStatus.PENDIENTE, NotificationStatus.PROCESANDO, 2);
+        statsTracker.transition(NotificationStatus.PROCESANDO, NotificationStatus.ENVIADO);
+
+        // ASSERT
+        assertEquals(0, statsTracker.count(NotificationStatus.PENDIENTE));
+        assertEquals(1, statsTracker.count(NotificationStatus.PROCESANDO));
+        assertEquals(1, statsTracker.count(NotificationStatus.ENVIADO));
+    }
+
+    @Test
+    @DisplayName("Debe reemplazar los contadores por el conteo agrupado de la BD (AAA)")
+    void testReconcile_OverwritesWithDatabaseCounts() {
+        // ARRANGE
+        statsTracker.created(NotificationStatus.FALLIDA);
+        when(notificationRepository.countGroupByStatus()).thenReturn(List.of(
+                new Object[]{NotificationStatus.ENVIADO, 7L},
+                new Object[]{NotificationStatus.PENDIENTE, 3L}));
+
+        // ACT
+        statsTracker.reconcile();
+
+        // ASSERT
+        assertEquals(7, statsTracker.count(NotificationStatus.ENVIADO));
+        assertEquals(3, statsTracker.count(NotificationStatus.PENDIENTE));
+        assertEquals(0, statsTracker.count(NotificationStatus.FALLIDA));
+    }
+}
@@ -0,0 +1,88 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.entity.User;
+import com.telconova.suportsuite.security.JwtTokenProvider;
+import com.telconova.suportsuite.security.RenewedTokenCache;
+import com.telconova.suportsuite.security.UserSecurityCache.UserSecurityState;
+import com.telconova.suportsuite.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenewedTokenCacheTest {
+
+    private RenewedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RenewedTokenCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+    }
+
+    @Test
+    @DisplayName("Debe firmar el token renovado una sola vez por token de origen, con el mismo usuario (AAA)")
+    void testGetOrRenew_SignsOncePerSourceToken() {
+        // ARRANGE
+        JwtTokenProvider tokenProvider = new JwtTokenProvider(new VerifiedTokenCache());
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                "TU7NUEVA7CLAVE7SECRETA7DEBE7SER7MUCHO7MAS7LARGA7Y7COMPLEJA7PARA7HS5127Y7CUMPLIR7CON75127BITS");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMinutes", 30L);
+        tokenProvider.init();
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("ana");
+        user.setRoles("ADMIN,SUPERVISOR");
+        String source = tokenProvider.generateToken(user);
+        Claims sourceClaims = tokenProvider.getClaims(source);
+        UserSecurityState state = new UserSecurityState(false, null, 7L, "ADMIN,SUPERVISOR");
+        long now = System.currentTimeMillis();
+        AtomicInteger signatures = new AtomicInteger();
+
+        // ACT
+        String first = null;
+        String last = null;
+        for (int i = 0; i < 500; i++) {
+            last = cache.getOrRenew(source, sourceClaims.getExpiration().getTime(), now + i, () -> {
+                signatures.incrementAndGet();
+                return tokenProvider.renewToken("ana", state);
+            });
+            first = first == null ? last : first;
+        }
+        Claims renewed = tokenProvider.getClaims(last);
+
+        // ASSERT
+        assertEquals(1, signatures.get());
+        assertSame(first, last);
+        assertEquals("ana", renewed.getSubject());
+        assertEquals("ADMIN,SUPERVISOR", renewed.get("roles"));
+        assertEquals(7, ((Number) renewed.get("userId")).intValue());
+    }
+
+    @Test
+    @DisplayName("Debe volver a firmar al expirar el token de origen y mantenerse acotada a max-entries (AAA)")
+    void testGetOrRenew_ExpiresWithSourceAndBounded() {
+        // ARRANGE
+        AtomicInteger signatures = new AtomicInteger();
+
+        // ACT
+        cache.getOrRenew("origen-1", 10_000, 1_000, () -> "renovado-" + signatures.incrementAndGet());
+        String beforeExpiry = cache.getOrRenew("origen-1", 10_000, 9_999, () -> "renovado-" + signatures.incrementAndGet());
+        String afterExpiry = cache.getOrRenew("origen-1", 10_000, 10_000, () -> "renovado-" + signatures.incrementAndGet());
+        for (int i = 2; i < 10; i++) {
+            cache.getOrRenew("origen-" + i, 20_000, 1_000, () -> "renovado-" + signatures.incrementAndGet());
+        }
+
+        // ASSERT
+        assertEquals("renovado-1", beforeExpiry);
+        assertEquals("renovado-2", afterExpiry);
+        assertTrue(cache.size() <= 2, "Entradas: " + cache.size());
+    }
+}
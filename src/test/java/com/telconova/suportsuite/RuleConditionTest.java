@@ -0,0 +1,92 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.entity.EventTrigger;
+import com.telconova.suportsuite.service.RuleCondition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleConditionTest {
+
+    @Test
+    @DisplayName("Debe evaluar comparaciones, in, and/or/not y rechazar expresiones inválidas (AAA)")
+    void testParse_EvaluatesPredicateTree() {
+        // ARRANGE
+        RuleCondition condition = RuleCondition.parse(
+                "customer_tier == 'PRIORITY' and (priority <= 2 or region in ('NORTE', 'CENTRO')) and not escalated == true");
+        Map<String, Object> event = new HashMap<>();
+        event.put("customer_tier", "PRIORITY");
+        event.put("priority", 4);
+        event.put("region", "NORTE");
+        event.put("escalated", false);
+
+        // ACT
+        boolean matchesByRegion = condition.matches(event);
+        event.put("region", "SUR");
+        boolean matchesOutsideRegion = condition.matches(event);
+        event.put("priority", 1L);
+        boolean matchesByPriority = condition.matches(event);
+
+        // ASSERT
+        assertTrue(matchesByRegion);
+        assertFalse(matchesOutsideRegion);
+        assertTrue(matchesByPriority);
+        assertTrue(RuleCondition.parse("trigger = 'SLA_WARNING'").matches(Map.of("trigger", EventTrigger.SLA_WARNING)));
+        assertTrue(RuleCondition.parse("missing != 'x' and missing == null").matches(Map.of()));
+        assertSame(RuleCondition.ALWAYS, RuleCondition.parse("  "));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> RuleCondition.parse("priority >> 2"));
+        assertTrue(error.getMessage().contains("posición 11"));
+    }
+
+    @Test
+    @DisplayName("Debe evaluar 1.000 reglas por evento sin crear objetos (AAA)")
+    void testMatches_ThousandRulesWithoutAllocation() {
+        // ARRANGE
+        RuleCondition[] rules = new RuleCondition[1_000];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = RuleCondition.parse("priority <= " + (i % 5)
+                    + " and customer_tier in ('PRIORITY', 'GOLD') and region != 'R" + i + "'");
+        }
+        Map<String, Object> event = new HashMap<>();
+        event.put("priority", 2);
+        event.put("customer_tier", "GOLD");
+        event.put("region", "R7");
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        int iterations = 2_000;
+        evaluateAll(rules, event, iterations);
+
+        // ACT
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        int matched = evaluateAll(rules, event, iterations);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // ASSERT
+        // priority 2 cumple "priority <= 2|3|4" (600 de 1.000) menos la regla que excluye R7
+        assertEquals(599 * iterations, matched);
+        assertTrue(allocated < 4_096, "Bytes asignados en la evaluación: " + allocated);
+    }
+
+    private static int evaluateAll(RuleCondition[] rules, Map<String, Object> event, int iterations) {
+        int matched = 0;
+        for (int n = 0; n < iterations; n++) {
+            for (RuleCondition rule : rules) {
+                if (rule.matches(event)) {
+                    matched++;
+                }
+            }
+        }
+        return matched;
+    }
+}
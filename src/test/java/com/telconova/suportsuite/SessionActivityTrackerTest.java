@@ -0,0 +1,84 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.security.JwtTokenProvider;
+import com.telconova.suportsuite.security.SessionActivityTracker;
+import com.telconova.suportsuite.security.TokenRevocationService;
+import com.telconova.suportsuite.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionActivityTrackerTest {
+
+    private static final long MINUTE_MS = 60_000;
+
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        JwtTokenProvider tokenProvider = new JwtTokenProvider(new VerifiedTokenCache());
+        revocationService = new TokenRevocationService(tokenProvider, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(revocationService, "maxEntries", 1_000);
+        ReflectionTestUtils.setField(revocationService, "bucketMs", 60_000L);
+        ReflectionTestUtils.setField(revocationService, "fallbackLifetimeMinutes", 30L);
+        revocationService.init();
+    }
+
+    @Test
+    @DisplayName("Debe rechazar la sesión inactiva y revocar en el barrido la abandonada (AAA)")
+    void testRecordAccess_InactiveSessionsRejectedAndSweptIntoRevocation() {
+        // ARRANGE
+        SessionActivityTracker tracker = newTracker(1_000);
+        long start = System.currentTimeMillis();
+        tracker.recordAccess("sesion-activa", start);
+        tracker.recordAccess("sesion-reusada", start);
+        tracker.recordAccess("sesion-abandonada", start);
+
+        // ACT
+        boolean activeAccepted = tracker.recordAccess("sesion-activa", start + 10 * MINUTE_MS);
+        boolean reusedAccepted = tracker.recordAccess("sesion-reusada", start + 16 * MINUTE_MS);
+        tracker.sweepInactive(start + 16 * MINUTE_MS);
+
+        // ASSERT
+        assertTrue(activeAccepted);
+        assertFalse(reusedAccepted);
+        assertEquals(1, tracker.size());
+        assertTrue(tracker.recordAccess("sesion-activa", start + 16 * MINUTE_MS));
+        assertTrue(revocationService.isRevoked("sesion-abandonada"));
+        assertFalse(revocationService.isRevoked("sesion-activa"));
+    }
+
+    @Test
+    @DisplayName("Debe mantener el seguimiento acotado a max-entries descartando los accesos más antiguos (AAA)")
+    void testRecordAccess_BoundedByMaxEntries() {
+        // ARRANGE
+        SessionActivityTracker tracker = newTracker(256);
+        long start = System.currentTimeMillis();
+
+        // ACT
+        for (int i = 0; i < 10_000; i++) {
+            tracker.recordAccess("sesion-" + i, start + i);
+        }
+
+        // ASSERT
+        assertTrue(tracker.size() <= 256, "Sesiones en memoria: " + tracker.size());
+        assertTrue(tracker.size() >= 200, "Sesiones en memoria: " + tracker.size());
+        assertTrue(tracker.recordAccess("sesion-9999", start + 10_000));
+        assertEquals(0, revocationService.size());
+    }
+
+    private SessionActivityTracker newTracker(int maxEntries) {
+        SessionActivityTracker tracker = new SessionActivityTracker(revocationService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tracker, "inactivityMinutes", 15L);
+        ReflectionTestUtils.setField(tracker, "tokenLifetimeMinutes", 30L);
+        ReflectionTestUtils.setField(tracker, "maxEntries", maxEntries);
+        tracker.init();
+        return tracker;
+    }
+}
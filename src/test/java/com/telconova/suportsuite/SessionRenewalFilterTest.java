@@ -0,0 +1,165 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.entity.User;
+import com.telconova.suportsuite.repository.UserRepository;
+import com.telconova.suportsuite.security.JwtTokenProvider;
+import com.telconova.suportsuite.security.RenewedTokenCache;
+import com.telconova.suportsuite.security.SessionActivityTracker;
+import com.telconova.suportsuite.security.SessionInactivityFilter;
+import com.telconova.suportsuite.security.SessionRenewalFilter;
+import com.telconova.suportsuite.security.TokenRevocationService;
+import com.telconova.suportsuite.security.UserSecurityCache;
+import com.telconova.suportsuite.security.VerifiedTokenCache;
+import com.telconova.suportsuite.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionRenewalFilterTest {
+
+    private static final long MINUTE_MS = 60_000;
+
+    private JwtTokenProvider tokenProvider;
+    private TokenRevocationService revocationService;
+    private SessionActivityTracker activityTracker;
+    private SessionInactivityFilter inactivityFilter;
+    private SessionRenewalFilter renewalFilter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // Vida de 4 minutos: todo token nuevo ya está dentro del umbral de renovación (5 minutos)
+        tokenProvider = new JwtTokenProvider(new VerifiedTokenCache());
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                "TU7NUEVA7CLAVE7SECRETA7DEBE7SER7MUCHO7MAS7LARGA7Y7COMPLEJA7PARA7HS5127Y7CUMPLIR7CON75127BITS");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMinutes", 4L);
+        tokenProvider.init();
+
+        revocationService = new TokenRevocationService(tokenProvider, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(revocationService, "maxEntries", 1_000);
+        ReflectionTestUtils.setField(revocationService, "bucketMs", 60_000L);
+        ReflectionTestUtils.setField(revocationService, "fallbackLifetimeMinutes", 30L);
+        revocationService.init();
+
+        activityTracker = new SessionActivityTracker(revocationService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(activityTracker, "inactivityMinutes", 15L);
+        ReflectionTestUtils.setField(activityTracker, "tokenLifetimeMinutes", 4L);
+        ReflectionTestUtils.setField(activityTracker, "maxEntries", 1_000);
+        activityTracker.init();
+
+        inactivityFilter = new SessionInactivityFilter();
+        ReflectionTestUtils.setField(inactivityFilter, "tokenRevocationService", revocationService);
+        ReflectionTestUtils.setField(inactivityFilter, "sessionActivityTracker", activityTracker);
+
+        user = new User();
+        user.setId(7L);
+        user.setUsername("ana");
+        user.setPasswordHash("hash");
+        user.setRoles("ADMIN,SUPERVISOR");
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("ana")).thenReturn(Optional.of(user));
+        UserSecurityCache userSecurityCache = new UserSecurityCache(userRepository, new CustomUserDetailsService());
+        ReflectionTestUtils.setField(userSecurityCache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(userSecurityCache, "maxEntries", 100);
+
+        RenewedTokenCache renewedTokens = new RenewedTokenCache();
+        ReflectionTestUtils.setField(renewedTokens, "maxEntries", 100);
+        renewalFilter = new SessionRenewalFilter(tokenProvider, revocationService, userSecurityCache, renewedTokens);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Debe responder 401 sin X-New-Token a una sesión inactiva o revocada cerca de expirar (AAA)")
+    void testFilterOrder_InactiveOrRevokedSessionGetsNoRenewedToken() throws Exception {
+        // ARRANGE
+        String inactive = tokenProvider.generateToken(user);
+        activityTracker.recordAccess(inactive, System.currentTimeMillis() - 16 * MINUTE_MS);
+        user.setRoles("ADMIN");
+        String revoked = tokenProvider.generateToken(user);
+        revocationService.revokeToken(revoked);
+
+        // ACT
+        // Mismo orden que la cadena de SecurityConfig: inactividad antes que renovación
+        MockHttpServletResponse inactiveResponse = runChain(inactive);
+        MockHttpServletResponse revokedResponse = runChain(revoked);
+
+        // ASSERT
+        assertEquals(401, inactiveResponse.getStatus());
+        assertNull(inactiveResponse.getHeader("X-New-Token"));
+        assertEquals(401, revokedResponse.getStatus());
+        assertNull(revokedResponse.getHeader("X-New-Token"));
+    }
+
+    @Test
+    @DisplayName("Debe renovar con los roles actuales del usuario y no renovar un token revocado (AAA)")
+    void testRenewal_UsesCurrentUserStateAndSkipsRevokedTokens() throws Exception {
+        // ARRANGE
+        String source = tokenProvider.generateToken(user);
+        // Otro rol para que no sea idéntico a source (firmado en el mismo segundo)
+        user.setRoles("ADMIN");
+        String revoked = tokenProvider.generateToken(user);
+        revocationService.revokeToken(revoked);
+        user.setRoles("SUPERVISOR");
+
+        // ACT
+        MockHttpServletResponse renewedResponse = runRenewalOnly(source);
+        MockHttpServletResponse revokedResponse = runRenewalOnly(revoked);
+
+        // ASSERT
+        String renewed = renewedResponse.getHeader("X-New-Token");
+        assertNotNull(renewed);
+        Claims claims = tokenProvider.getClaims(renewed);
+        assertEquals("ana", claims.getSubject());
+        assertEquals("SUPERVISOR", claims.get("roles"));
+        assertEquals(7, ((Number) claims.get("userId")).intValue());
+        assertNull(revokedResponse.getHeader("X-New-Token"));
+    }
+
+    private MockHttpServletResponse runChain(String token) throws Exception {
+        MockHttpServletRequest request = authenticatedRequest(token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new MockFilterChain(new HttpServlet() { }, inactivityFilter, renewalFilter)
+                .doFilter(request, response);
+        return response;
+    }
+
+    private MockHttpServletResponse runRenewalOnly(String token) throws Exception {
+        MockHttpServletRequest request = authenticatedRequest(token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        renewalFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    // Lo que deja JwtAuthenticationFilter: Claims verificados en la petición y autenticación en el contexto
+    private MockHttpServletRequest authenticatedRequest(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/alert-rules");
+        request.addHeader("Authorization", "Bearer " + token);
+        request.setAttribute(JwtTokenProvider.CLAIMS_ATTRIBUTE, tokenProvider.getClaims(token));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("ana", null, List.of()));
+        return request;
+    }
+}
@@ -0,0 +1,51 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.service.TokenBucket;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    @DisplayName("Debe admitir la ráfaga y luego indicar la espera hasta el siguiente permiso (AAA)")
+    void testTryAcquire_BurstThenWait() {
+        // ARRANGE
+        TokenBucket bucket = new TokenBucket(2, 3, 0);
+
+        // ACT
+        long first = bucket.tryAcquire(0);
+        long second = bucket.tryAcquire(0);
+        long third = bucket.tryAcquire(0);
+        long throttled = bucket.tryAcquire(0);
+        long afterRefill = bucket.tryAcquire(SECOND / 2);
+
+        // ASSERT
+        assertEquals(0, first + second + third);
+        assertEquals(SECOND / 2, throttled);
+        assertEquals(0, afterRefill);
+    }
+
+    @Test
+    @DisplayName("Debe devolver el permiso no usado y quedar inactivo al rellenarse (AAA)")
+    void testRefundAndIdle() {
+        // ARRANGE
+        TokenBucket bucket = new TokenBucket(1, 1, 0);
+        bucket.tryAcquire(0);
+
+        // ACT
+        boolean idleBeforeRefund = bucket.isIdle(0);
+        bucket.refund();
+        long afterRefund = bucket.tryAcquire(0);
+
+        // ASSERT
+        assertFalse(idleBeforeRefund);
+        assertEquals(0, afterRefund);
+        assertTrue(bucket.isIdle(2 * SECOND));
+    }
+}
@@ -0,0 +1,105 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.entity.User;
+import com.telconova.suportsuite.security.JwtTokenProvider;
+import com.telconova.suportsuite.security.TokenRevocationService;
+import com.telconova.suportsuite.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenRevocationServiceTest {
+
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        tokenProvider = new JwtTokenProvider(cache);
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                "TU7NUEVA7CLAVE7SECRETA7DEBE7SER7MUCHO7MAS7LARGA7Y7COMPLEJA7PARA7HS5127Y7CUMPLIR7CON75127BITS");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMinutes", 30L);
+        tokenProvider.init();
+    }
+
+    @Test
+    @DisplayName("Debe reconocer solo el token revocado, sin crear objetos al consultar (AAA)")
+    void testIsRevoked_MatchesOnlyRevokedToken() {
+        // ARRANGE
+        TokenRevocationService service = newService(1_000);
+        String revoked = tokenFor("ana");
+        String other = tokenFor("luis");
+        service.revokeToken(revoked);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < 10_000; i++) {
+            service.isRevoked(other);
+        }
+
+        // ACT
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        boolean otherRevoked = false;
+        for (int i = 0; i < 100_000; i++) {
+            otherRevoked |= service.isRevoked(other);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        boolean revokedBefore = service.isRevoked(revoked);
+        service.unrevokeToken(revoked);
+        boolean revokedAfter = service.isRevoked(revoked);
+
+        // ASSERT
+        assertFalse(otherRevoked);
+        assertTrue(allocated < 4_096, "Bytes asignados en isRevoked: " + allocated);
+        assertTrue(revokedBefore);
+        assertFalse(revokedAfter);
+    }
+
+    @Test
+    @DisplayName("Debe conservar toda revocación vigente aunque se supere max-entries (AAA)")
+    void testRevokeToken_FailsClosedPastMaxEntries() {
+        // ARRANGE
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TokenRevocationService service = newService(64, meterRegistry);
+
+        // ACT
+        for (int i = 0; i < 1_000; i++) {
+            service.revokeToken("token-no-jwt-" + i);
+        }
+
+        // ASSERT
+        assertEquals(1_000, service.size());
+        assertTrue(service.isRevoked("token-no-jwt-0"));
+        assertTrue(service.isRevoked("token-no-jwt-999"));
+        assertEquals(1_000 - 64, meterRegistry.counter("security.tokens.revoked.over-capacity").count());
+    }
+
+    private TokenRevocationService newService(int maxEntries) {
+        return newService(maxEntries, new SimpleMeterRegistry());
+    }
+
+    private TokenRevocationService newService(int maxEntries, SimpleMeterRegistry meterRegistry) {
+        TokenRevocationService service = new TokenRevocationService(tokenProvider, meterRegistry);
+        ReflectionTestUtils.setField(service, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(service, "bucketMs", 60_000L);
+        ReflectionTestUtils.setField(service, "fallbackLifetimeMinutes", 30L);
+        service.init();
+        return service;
+    }
+
+    private String tokenFor(String username) {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername(username);
+        user.setRoles("ADMIN");
+        return tokenProvider.generateToken(user);
+    }
+}
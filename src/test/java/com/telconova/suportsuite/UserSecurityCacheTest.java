@@ -0,0 +1,77 @@
+package com.telconova.suportsuite;
+
+import com.telconova.suportsuite.DTO.RosterUser;
+import com.telconova.suportsuite.entity.User;
+import com.telconova.suportsuite.repository.UserRepository;
+import com.telconova.suportsuite.security.UserSecurityCache;
+import com.telconova.suportsuite.security.UserSecurityCache.UserSecurityState;
+import com.telconova.suportsuite.service.CustomUserDetailsService;
+import com.telconova.suportsuite.service.UserChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserSecurityCacheTest {
+
+    @Test
+    @DisplayName("Debe consultar la BD una vez por usuario y recargar tras un bloqueo (AAA)")
+    void testGet_CachesUntilUserChanged() {
+        // ARRANGE
+        UserRepository userRepository = mock(UserRepository.class);
+        UserSecurityCache cache = new UserSecurityCache(userRepository, new CustomUserDetailsService());
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("ana");
+        user.setPasswordHash("hash");
+        user.setRoles("ADMIN");
+        when(userRepository.findByUsername("ana")).thenReturn(Optional.of(user));
+
+        // ACT
+        UserSecurityState first = cache.get("ana");
+        UserSecurityState second = cache.get("ana");
+        user.setLocked(true);
+        cache.onUserChanged(new UserChangedEvent(new RosterUser(1L, "ana", "ADMIN", true, null)));
+        UserSecurityState afterLock = cache.get("ana");
+
+        // ASSERT
+        assertSame(first, second);
+        assertFalse(first.locked());
+        assertEquals("ana", first.userDetails().getUsername());
+        assertTrue(afterLock.locked());
+        verify(userRepository, times(2)).findByUsername("ana");
+    }
+
+    @Test
+    @DisplayName("Debe internar las authorities de cada combinación de roles (AAA)")
+    void testAuthoritiesFor_InternsRoleSets() {
+        // ARRANGE
+        UserSecurityCache cache = new UserSecurityCache(mock(UserRepository.class), new CustomUserDetailsService());
+
+        // ACT
+        List<GrantedAuthority> fromString = cache.authoritiesFor("ADMIN, SUPERVISOR");
+        List<GrantedAuthority> again = cache.authoritiesFor("ADMIN, SUPERVISOR");
+        List<GrantedAuthority> fromList = cache.authoritiesFor(List.of("TECNICO"));
+
+        // ASSERT
+        assertSame(fromString, again);
+        assertEquals(List.of("ROLE_ADMIN", "ROLE_SUPERVISOR"),
+                fromString.stream().map(GrantedAuthority::getAuthority).toList());
+        assertEquals("ROLE_TECNICO", fromList.get(0).getAuthority());
+        assertTrue(cache.authoritiesFor(null).isEmpty());
+    }
+}